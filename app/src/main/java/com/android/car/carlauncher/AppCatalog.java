@@ -0,0 +1,199 @@
+/*
+ * Copyright (C) 2022 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.car.carlauncher;
+
+import android.content.ComponentName;
+import android.content.pm.LauncherApps;
+import android.content.pm.PackageManager;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import androidx.annotation.WorkerThread;
+
+import com.android.car.carlauncher.AppLauncherUtils.AppTypes;
+import com.android.car.carlauncher.AppLauncherUtils.LauncherAppsInfo;
+import com.android.car.carlauncher.AppLauncherUtils.MediaSourceSelector;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * 可变的应用目录。完整扫描一次之后，按包应用增量（安装、变更、替换、卸载），
+ * 每个增量只重新解析该包中的启动器活动和媒体服务。
+ *
+ * <p>目录总是包含所有启动器活动和媒体服务，不做任何隐藏；各模式需要显示的组件通过
+ * {@link AppLauncherUtils#filterLaunchables} 从中筛选，因此切换模式不需要重新扫描。
+ *
+ * <p>此类不是线程安全的，交给 {@link AppCatalogLoader} 之后只能在其后台线程上使用；
+ * 通过 {@link #snapshot()} 向其它线程发布不可变快照。
+ */
+final class AppCatalog {
+    private static final @AppTypes int ALL_APP_TYPES =
+            AppLauncherUtils.APP_TYPE_LAUNCHABLES | AppLauncherUtils.APP_TYPE_MEDIA_SERVICES;
+
+    private final LauncherApps mLauncherApps;
+    private final DistractionOptimizationCache.Lookup mDoLookup;
+    private final PackageManager mPackageManager;
+    private final MediaSourceSelector mMediaSourceSelector;
+    @Nullable
+    private final DistractionOptimizationCache mDoCache;
+    @Nullable
+    private final AppIconCache mIconCache;
+
+    private final Map<ComponentName, AppMetaData> mLaunchables = new HashMap<>();
+    private final Set<ComponentName> mMediaServices = new HashSet<>();
+    private final Map<String, ComponentName> mMediaSources = new HashMap<>();
+    private final Map<String, ComponentName> mLauncherActivities = new HashMap<>();
+
+    /**
+     * 参数的含义与 {@link AppLauncherUtils#getLauncherApps} 相同，汽车服务尚未连接时
+     * {@code doLookup} 和 {@code mediaSourceSelector} 为{@code null}。
+     *
+     * @param doCache   分心优化结果的缓存，包变化时此目录负责使对应条目失效
+     * @param iconCache 图标缓存，以versionCode为键，包变化时此目录同样负责使对应图标失效
+     */
+    AppCatalog(LauncherApps launcherApps,
+            DistractionOptimizationCache.Lookup doLookup,
+            PackageManager packageManager,
+            MediaSourceSelector mediaSourceSelector,
+            @Nullable DistractionOptimizationCache doCache,
+            @Nullable AppIconCache iconCache) {
+        mLauncherApps = launcherApps;
+        mDoLookup = doLookup;
+        mPackageManager = packageManager;
+        mMediaSourceSelector = mediaSourceSelector;
+        mDoCache = doCache;
+        mIconCache = iconCache;
+    }
+
+    /** 如果扫描所需的系统服务都已可用，则返回{@code true}。 */
+    boolean isScannable() {
+        return mLauncherApps != null && mDoLookup != null && mPackageManager != null
+                && mMediaSourceSelector != null;
+    }
+
+    /** 丢弃当前内容并重新扫描所有包，同时清除缓存中已不存在的活动。 */
+    @WorkerThread
+    void reload() {
+        clear();
+        merge(resolve(/* packageName= */ null));
+        if (mDoCache != null) {
+            mDoCache.retainComponents(mLaunchables.keySet());
+        }
+    }
+
+    /**
+     * 重新解析单个包，用于安装、变更和替换广播。该包之前的条目会被整体替换。
+     */
+    @WorkerThread
+    void updatePackage(@NonNull String packageName) {
+        removePackage(packageName);
+        merge(resolve(packageName));
+    }
+
+    /** 移除属于给定包的所有条目，用于卸载广播。 */
+    @WorkerThread
+    void removePackage(@NonNull String packageName) {
+        if (mDoCache != null) {
+            mDoCache.invalidatePackage(packageName);
+        }
+        if (mIconCache != null) {
+            mIconCache.invalidatePackage(packageName);
+        }
+        mLaunchables.keySet().removeIf(cn -> cn.getPackageName().equals(packageName));
+        mMediaServices.removeIf(cn -> cn.getPackageName().equals(packageName));
+        mMediaSources.remove(packageName);
+        mLauncherActivities.remove(packageName);
+    }
+
+    /** 把扫描过程中更新的缓存写回磁盘。 */
+    @WorkerThread
+    void persistCaches() {
+        if (mDoCache != null) {
+            mDoCache.persist();
+        }
+    }
+
+    /** 返回当前目录的不可变快照。 */
+    @NonNull
+    LauncherAppsInfo snapshot() {
+        return new LauncherAppsInfo(new HashMap<>(mLaunchables), new HashSet<>(mMediaServices),
+                new HashMap<>(mMediaSources), new HashMap<>(mLauncherActivities));
+    }
+
+    /**
+     * 用磁盘快照中的记录替换当前内容。恢复的条目只能从图标缓存中取得图标，
+     * 包名索引也只是由可见条目近似推导而来，应尽快通过 {@link #reload()} 与实时扫描结果对账。
+     *
+     * @return 如果有可用的快照则返回{@code true}
+     */
+    boolean restore(@Nullable List<AppCatalogSnapshotStore.Entry> entries) {
+        if (entries == null || mPackageManager == null) {
+            return false;
+        }
+        clear();
+        for (AppCatalogSnapshotStore.Entry entry : entries) {
+            String packageName = entry.mComponentName.getPackageName();
+            if (entry.mIsMediaService) {
+                mMediaServices.add(entry.mComponentName);
+                mMediaSources.putIfAbsent(packageName, entry.mComponentName);
+            }
+            if (!entry.mIsLaunchable) {
+                continue;
+            }
+            if (!entry.mIsMediaService) {
+                mLauncherActivities.putIfAbsent(packageName, entry.mComponentName);
+            }
+            AppIconHandle icon = new AppIconHandle(mIconCache, entry.mComponentName,
+                    entry.mVersionCode, /* loader= */ null);
+            AppMetaData app = entry.mIsMediaService
+                    ? AppLauncherUtils.createMediaServiceMetaData(entry.mLabel,
+                            entry.mComponentName, entry.mVersionCode, icon,
+                            mPackageManager, mMediaSourceSelector)
+                    : AppLauncherUtils.createLauncherActivityMetaData(entry.mLabel,
+                            entry.mComponentName, entry.mVersionCode, icon,
+                            entry.mIsDistractionOptimized);
+            mLaunchables.put(entry.mComponentName, app);
+        }
+        return true;
+    }
+
+    private LauncherAppsInfo resolve(String packageName) {
+        return AppLauncherUtils.getLauncherApps(/* appsToHide= */ Collections.emptySet(),
+                /* customMediaComponents= */ Collections.emptySet(), ALL_APP_TYPES, mLauncherApps,
+                mDoLookup, mPackageManager, mMediaSourceSelector, mDoCache, mIconCache,
+                packageName);
+    }
+
+    private void clear() {
+        mLaunchables.clear();
+        mMediaServices.clear();
+        mMediaSources.clear();
+        mLauncherActivities.clear();
+    }
+
+    private void merge(LauncherAppsInfo appsInfo) {
+        mLaunchables.putAll(appsInfo.getLaunchables());
+        mMediaServices.addAll(appsInfo.getMediaServices());
+        mMediaSources.putAll(appsInfo.getMediaSources());
+        mLauncherActivities.putAll(appsInfo.getLauncherActivities());
+    }
+}
@@ -0,0 +1,179 @@
+/*
+ * Copyright (C) 2022 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.car.carlauncher;
+
+import android.os.Process;
+import android.util.Log;
+
+import androidx.annotation.MainThread;
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import com.android.car.carlauncher.AppLauncherUtils.LauncherAppsInfo;
+
+import java.io.PrintWriter;
+import java.util.Set;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * 在后台线程上维护 {@link AppCatalog}，并在主线程上发布不可变的 {@link LauncherAppsInfo} 快照。
+ *
+ * <p>完整扫描请求由 {@link RefreshCoordinator} 合并：同一时间最多只有一次扫描在进行，
+ * 进行中到达的请求合并为一次后续扫描，过期的扫描结果会在主线程上被丢弃。
+ * 按包的增量在同一个后台线程上排队，因此总是应用在最近一次完整扫描的结果之上。
+ * 除构造方法外，所有方法都必须在主线程调用。
+ */
+final class AppCatalogLoader {
+    private static final String TAG = "AppCatalogLoader";
+
+    /** 目录更新后在主线程上回调。 */
+    interface Callback {
+        void onAppsLoaded(@NonNull LauncherAppsInfo appsInfo);
+    }
+
+    private final ExecutorService mBackgroundExecutor = Executors.newSingleThreadExecutor(
+            runnable -> new Thread(() -> {
+                Process.setThreadPriority(Process.THREAD_PRIORITY_BACKGROUND);
+                runnable.run();
+            }, TAG));
+    private final Executor mMainExecutor;
+    private final Callback mCallback;
+    @Nullable
+    private final AppCatalogSnapshotStore mSnapshotStore;
+    private final RefreshCoordinator mRefreshCoordinator = new RefreshCoordinator(this::startScan);
+
+    // 下一次扫描使用的空目录，总是最近一次请求提供的。仅在主线程访问。
+    @Nullable
+    private AppCatalog mNextCatalog;
+    private boolean mDestroyed;
+
+    // 最近一次完整扫描得到的目录。仅在后台线程访问。
+    private AppCatalog mCatalog;
+
+    /**
+     * @param snapshotStore 每次目录更新后写入快照的位置；为{@code null}时不写快照
+     */
+    AppCatalogLoader(@NonNull Executor mainExecutor, @NonNull Callback callback,
+            @Nullable AppCatalogSnapshotStore snapshotStore) {
+        mMainExecutor = mainExecutor;
+        mCallback = callback;
+        mSnapshotStore = snapshotStore;
+    }
+
+    /**
+     * 请求一次完整扫描。已经有扫描在进行时，与其它请求合并为一次后续扫描。
+     *
+     * @param catalog 新的空目录，交给加载器之后只能在后台线程上使用
+     */
+    @MainThread
+    void load(@NonNull AppCatalog catalog) {
+        // 合并的请求中只有最后一个目录会被使用，它持有最新的系统服务
+        mNextCatalog = catalog;
+        mRefreshCoordinator.requestRefresh();
+    }
+
+    /**
+     * 把一批包变化应用到目录上，只发布一次快照。
+     *
+     * @param updatedPackages 需要重新解析的包（安装、变更、替换）
+     * @param removedPackages 需要移除的包（卸载）
+     */
+    @MainThread
+    void applyPackageChanges(@NonNull Set<String> updatedPackages,
+            @NonNull Set<String> removedPackages) {
+        int generation = mRefreshCoordinator.getLatestGeneration();
+        mBackgroundExecutor.execute(() -> {
+            if (mCatalog == null) {
+                // 还没有完整扫描过，随后的完整扫描会包含这些包的最新状态。
+                return;
+            }
+            for (String packageName : removedPackages) {
+                mCatalog.removePackage(packageName);
+            }
+            for (String packageName : updatedPackages) {
+                mCatalog.updatePackage(packageName);
+            }
+            LauncherAppsInfo appsInfo = prepare(mCatalog);
+            mMainExecutor.execute(() -> {
+                // 之后又请求了完整扫描时，由扫描结果代替此增量
+                if (!mDestroyed && generation == mRefreshCoordinator.getLatestGeneration()) {
+                    mCallback.onAppsLoaded(appsInfo);
+                }
+            });
+            persist(mCatalog, appsInfo);
+        });
+    }
+
+    /** 释放后台线程，之后不能再使用此加载器。 */
+    @MainThread
+    void destroy() {
+        mDestroyed = true;
+        mBackgroundExecutor.shutdown();
+    }
+
+    void dump(@NonNull String prefix, @NonNull PrintWriter writer) {
+        mRefreshCoordinator.dump(prefix, writer);
+    }
+
+    private void startScan(int generation) {
+        AppCatalog catalog = mNextCatalog;
+        mNextCatalog = null;
+        mBackgroundExecutor.execute(() -> {
+            LauncherAppsInfo appsInfo = null;
+            try {
+                catalog.reload();
+                mCatalog = catalog;
+                appsInfo = prepare(catalog);
+            } catch (RuntimeException e) {
+                // 例如汽车服务在扫描中途断开；仍然要结束这次扫描，否则合并的请求不会再执行
+                Log.w(TAG, "Catalog scan failed, generation=" + generation, e);
+            }
+            LauncherAppsInfo result = appsInfo;
+            mMainExecutor.execute(() -> {
+                if (mDestroyed) {
+                    return;
+                }
+                if (!mRefreshCoordinator.onScanFinished(generation)) {
+                    Log.d(TAG, "Dropping stale catalog, generation=" + generation);
+                } else if (result != null) {
+                    mCallback.onAppsLoaded(result);
+                }
+            });
+            if (result != null) {
+                persist(catalog, result);
+            }
+        });
+    }
+
+    /** 取得快照，并在后台预先计算排序键，主线程上排序时只比较键。 */
+    private static LauncherAppsInfo prepare(AppCatalog catalog) {
+        LauncherAppsInfo appsInfo = catalog.snapshot();
+        for (AppMetaData app : appsInfo.getLaunchables().values()) {
+            app.getCollationKey();
+        }
+        return appsInfo;
+    }
+
+    private void persist(AppCatalog catalog, LauncherAppsInfo appsInfo) {
+        catalog.persistCaches();
+        if (mSnapshotStore != null) {
+            mSnapshotStore.write(appsInfo);
+        }
+    }
+}
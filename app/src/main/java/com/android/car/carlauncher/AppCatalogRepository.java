@@ -0,0 +1,259 @@
+/*
+ * Copyright (C) 2022 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.car.carlauncher;
+
+import android.car.Car;
+import android.car.content.pm.CarPackageManager;
+import android.car.media.CarMediaManager;
+import android.content.BroadcastReceiver;
+import android.content.ComponentCallbacks;
+import android.content.Context;
+import android.content.Intent;
+import android.content.IntentFilter;
+import android.content.pm.LauncherApps;
+import android.content.res.Configuration;
+import android.text.TextUtils;
+import android.util.Log;
+
+import androidx.annotation.MainThread;
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import com.android.car.carlauncher.AppLauncherUtils.LauncherAppsInfo;
+
+import java.io.File;
+import java.io.PrintWriter;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 进程级的应用目录，由 {@link CarLauncher} 和 {@link AppGridActivity} 共享。
+ *
+ * <p>持有LauncherApps扫描、图标缓存和分心优化缓存，通过 {@link CarConnectionManager}
+ * 获取汽车管理器，并自己监听包变化广播，因此目录在网格关闭期间也保持最新。{@link CarLauncher} 空闲时预热，
+ * 之后打开网格只是读取内存中的目录，只有汽车服务重新连接时才重新扫描。
+ *
+ * <p>目录包含所有启动器活动和媒体服务，各模式需要显示的组件由使用者用
+ * {@link AppLauncherUtils#filterLaunchables} 筛选。
+ *
+ * <p>所有方法都必须在主线程调用。
+ */
+final class AppCatalogRepository {
+    private static final String TAG = "AppCatalogRepository";
+    private static final String CATALOG_SNAPSHOT_FILE_NAME = "app_catalog_snapshot.bin";
+    private static final String DO_CACHE_FILE_NAME = "distraction_optimization_cache.bin";
+    private static final String ICON_CACHE_DIR_NAME = "app_icons";
+
+    /** 目录更新后在主线程上回调。 */
+    interface Listener {
+        void onAppsLoaded(@NonNull LauncherAppsInfo appsInfo);
+    }
+
+    private static AppCatalogRepository sInstance;
+
+    private final Context mContext;
+    private final DistractionOptimizationCache mDoCache;
+    private final AppIconCache mIconCache;
+    private final AppCatalogSnapshotStore mSnapshotStore;
+    private final AppCatalogLoader mLoader;
+    private final PackageChangeCoalescer mPackageChangeCoalescer;
+    private final List<Listener> mListeners = new ArrayList<>();
+    @Nullable
+    private CarPackageManager mCarPackageManager;
+    @Nullable
+    private CarMediaManager mCarMediaManager;
+
+    // 是否已经开始加载，以及最近一次发布的目录
+    private boolean mLoadRequested;
+    @Nullable
+    private LauncherAppsInfo mAppsInfo;
+    private int mScansRequested;
+    private int mCacheReads;
+
+    /** 返回进程中唯一的实例，第一次调用时创建。 */
+    @MainThread
+    @NonNull
+    static AppCatalogRepository getInstance(@NonNull Context context) {
+        if (sInstance == null) {
+            sInstance = new AppCatalogRepository(context.getApplicationContext());
+        }
+        return sInstance;
+    }
+
+    private AppCatalogRepository(Context context) {
+        mContext = context;
+        mDoCache = new DistractionOptimizationCache(
+                new File(context.getFilesDir(), DO_CACHE_FILE_NAME));
+        mIconCache = new AppIconCache(context.getResources(),
+                new File(context.getCacheDir(), ICON_CACHE_DIR_NAME),
+                context.getResources().getInteger(R.integer.app_icon_memory_cache_size_kb) * 1024);
+        mSnapshotStore = new AppCatalogSnapshotStore(
+                new File(context.getFilesDir(), CATALOG_SNAPSHOT_FILE_NAME));
+        mLoader = new AppCatalogLoader(context.getMainExecutor(), this::publish, mSnapshotStore);
+        mPackageChangeCoalescer = new PackageChangeCoalescer(context.getMainLooper(),
+                context.getResources().getInteger(R.integer.package_change_coalescing_window_ms),
+                mLoader::applyPackageChanges);
+
+        IntentFilter filter = new IntentFilter();
+        filter.addAction(Intent.ACTION_PACKAGE_ADDED);
+        filter.addAction(Intent.ACTION_PACKAGE_CHANGED);
+        filter.addAction(Intent.ACTION_PACKAGE_REPLACED);
+        filter.addAction(Intent.ACTION_PACKAGE_REMOVED);
+        filter.addDataScheme("package");
+        context.registerReceiver(new AppInstallUninstallReceiver(), filter);
+        // 活动自己处理的配置变化不会重建活动，因此在应用级别监听
+        context.registerComponentCallbacks(new IconConfigurationCallbacks());
+
+        // 汽车服务重启后会重新回调连接，届时重新扫描
+        CarConnectionManager.getInstance(context).addListener(new CarConnectionListener());
+    }
+
+    /**
+     * 准备目录。已经加载过时只读取内存中的目录；否则先从磁盘快照恢复，再在后台完整扫描。
+     */
+    @MainThread
+    void load() {
+        if (mLoadRequested) {
+            mCacheReads++;
+            return;
+        }
+        mLoadRequested = true;
+        restoreFromSnapshot();
+        refresh();
+    }
+
+    /** 在后台重新完整扫描。 */
+    @MainThread
+    void refresh() {
+        if (!mLoadRequested) {
+            return;
+        }
+        AppCatalog catalog = createCatalog();
+        if (!catalog.isScannable()) {
+            // 汽车服务尚未连接，连接后会再次刷新；在此之前继续使用快照中的内容
+            return;
+        }
+        mScansRequested++;
+        mLoader.load(catalog);
+    }
+
+    /** 添加监听器。如果已经有加载好的目录，立即回调一次。 */
+    @MainThread
+    void addListener(@NonNull Listener listener) {
+        mListeners.add(listener);
+        if (mAppsInfo != null) {
+            listener.onAppsLoaded(mAppsInfo);
+        }
+    }
+
+    @MainThread
+    void removeListener(@NonNull Listener listener) {
+        mListeners.remove(listener);
+    }
+
+    /** 返回最近一次发布的目录；尚未加载时为{@code null}。 */
+    @MainThread
+    @Nullable
+    LauncherAppsInfo getAppsInfo() {
+        return mAppsInfo;
+    }
+
+    void dump(@NonNull String prefix, @NonNull PrintWriter writer) {
+        writer.println(prefix + TAG + ": carConnected=" + (mCarPackageManager != null)
+                + ", scansRequested=" + mScansRequested + ", cacheReads=" + mCacheReads
+                + ", listeners=" + mListeners.size());
+        mLoader.dump(prefix + "  ", writer);
+        mPackageChangeCoalescer.dump(prefix + "  ", writer);
+        mDoCache.dump(prefix + "  ", writer);
+        mIconCache.dump(prefix + "  ", writer);
+    }
+
+    /** 创建一个空目录。 */
+    private AppCatalog createCatalog() {
+        return new AppCatalog(mContext.getSystemService(LauncherApps.class),
+                AppLauncherUtils.distractionOptimizationLookup(mCarPackageManager),
+                mContext.getPackageManager(),
+                AppLauncherUtils.mediaSourceSelector(mCarMediaManager),
+                mDoCache,
+                mIconCache);
+    }
+
+    /** 从磁盘快照恢复上一次的目录，使网格的第一帧无需等待扫描。 */
+    private void restoreFromSnapshot() {
+        AppCatalog catalog = createCatalog();
+        if (catalog.restore(mSnapshotStore.read())) {
+            publish(catalog.snapshot());
+        }
+    }
+
+    private void publish(LauncherAppsInfo appsInfo) {
+        mAppsInfo = appsInfo;
+        // 复制一份，监听器可能在回调中移除自己
+        for (Listener listener : new ArrayList<>(mListeners)) {
+            listener.onAppsLoaded(appsInfo);
+        }
+    }
+
+    private class CarConnectionListener implements CarConnectionManager.Listener {
+        @Override
+        public void onCarConnected(@NonNull Car car) {
+            mCarPackageManager = (CarPackageManager) car.getCarManager(Car.PACKAGE_SERVICE);
+            mCarMediaManager = (CarMediaManager) car.getCarManager(Car.CAR_MEDIA_SERVICE);
+            refresh();
+        }
+
+        @Override
+        public void onCarDisconnected() {
+            mCarPackageManager = null;
+            mCarMediaManager = null;
+        }
+    }
+
+    private class IconConfigurationCallbacks implements ComponentCallbacks {
+        @Override
+        public void onConfigurationChanged(@NonNull Configuration newConfig) {
+            mIconCache.onConfigurationChanged(newConfig);
+        }
+
+        @Override
+        public void onLowMemory() {
+            // 内存层已经按字节数限制大小
+        }
+    }
+
+    private class AppInstallUninstallReceiver extends BroadcastReceiver {
+        @Override
+        public void onReceive(Context context, Intent intent) {
+            String packageName = intent.getData().getSchemeSpecificPart();
+
+            if (TextUtils.isEmpty(packageName)) {
+                Log.e(TAG, "系统发送了空应用安装/卸载广播");
+                return;
+            }
+
+            // 只重新解析发生变化的包，而不是重新扫描所有应用
+            if (Intent.ACTION_PACKAGE_REMOVED.equals(intent.getAction())) {
+                if (!intent.getBooleanExtra(Intent.EXTRA_REPLACING, false)) {
+                    mPackageChangeCoalescer.onPackageChanged(packageName, /* removed= */ true);
+                }
+                // 替换时随后会收到ACTION_PACKAGE_REPLACED
+                return;
+            }
+            mPackageChangeCoalescer.onPackageChanged(packageName, /* removed= */ false);
+        }
+    }
+}
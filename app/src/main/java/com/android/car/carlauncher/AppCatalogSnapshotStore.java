@@ -0,0 +1,200 @@
+/*
+ * Copyright (C) 2022 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.car.carlauncher;
+
+import android.content.ComponentName;
+import android.util.AtomicFile;
+import android.util.Log;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import androidx.annotation.WorkerThread;
+
+import com.android.car.carlauncher.AppLauncherUtils.LauncherAppsInfo;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileNotFoundException;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 应用目录在磁盘上的紧凑二进制快照，使应用网格在冷启动时无需等待扫描即可显示第一帧。
+ *
+ * <p>文件格式（大端序）：
+ * <pre>
+ *   int magic, int formatVersion, int entryCount
+ *   entryCount × { byte flags, long versionCode, string component, string label }
+ *   string := int byteLength, UTF-8 bytes
+ * </pre>
+ * 文件通过 {@link AtomicFile} 原子地写入，读取时使用内存映射，头部不匹配时不会解析任何记录。
+ */
+final class AppCatalogSnapshotStore {
+    private static final String TAG = "AppCatalogSnapshot";
+
+    private static final int MAGIC = 0x43415443; // "CATC"
+    // 版本2起快照总是包含完整目录，不再按查询参数区分
+    private static final int FORMAT_VERSION = 2;
+
+    private static final int FLAG_DISTRACTION_OPTIMIZED = 1;
+    private static final int FLAG_MEDIA_SERVICE = 1 << 1;
+    private static final int FLAG_LAUNCHABLE = 1 << 2;
+
+    /** 快照中的一条记录。 */
+    static final class Entry {
+        final ComponentName mComponentName;
+        final String mLabel;
+        final long mVersionCode;
+        final boolean mIsDistractionOptimized;
+        final boolean mIsMediaService;
+        final boolean mIsLaunchable;
+
+        Entry(ComponentName componentName, String label, long versionCode,
+                boolean isDistractionOptimized, boolean isMediaService, boolean isLaunchable) {
+            mComponentName = componentName;
+            mLabel = label;
+            mVersionCode = versionCode;
+            mIsDistractionOptimized = isDistractionOptimized;
+            mIsMediaService = isMediaService;
+            mIsLaunchable = isLaunchable;
+        }
+    }
+
+    private final AtomicFile mFile;
+
+    AppCatalogSnapshotStore(@NonNull File file) {
+        mFile = new AtomicFile(file);
+    }
+
+    /** 原子地写入快照。写入失败时保留旧文件。 */
+    @WorkerThread
+    void write(@NonNull LauncherAppsInfo appsInfo) {
+        Map<ComponentName, AppMetaData> launchables = appsInfo.getLaunchables();
+        List<ComponentName> mediaOnly = new ArrayList<>();
+        for (ComponentName componentName : appsInfo.getMediaServices()) {
+            if (!launchables.containsKey(componentName)) {
+                mediaOnly.add(componentName);
+            }
+        }
+
+        FileOutputStream fos = null;
+        try {
+            fos = mFile.startWrite();
+            DataOutputStream out = new DataOutputStream(new BufferedOutputStream(fos));
+            out.writeInt(MAGIC);
+            out.writeInt(FORMAT_VERSION);
+            out.writeInt(launchables.size() + mediaOnly.size());
+            for (AppMetaData app : launchables.values()) {
+                int flags = FLAG_LAUNCHABLE;
+                if (app.getIsDistractionOptimized()) {
+                    flags |= FLAG_DISTRACTION_OPTIMIZED;
+                }
+                if (appsInfo.isMediaService(app.getComponentName())) {
+                    flags |= FLAG_MEDIA_SERVICE;
+                }
+                writeEntry(out, flags, app.getVersionCode(), app.getComponentName(),
+                        app.getDisplayName());
+            }
+            for (ComponentName componentName : mediaOnly) {
+                writeEntry(out, FLAG_MEDIA_SERVICE, AppMetaData.UNKNOWN_VERSION, componentName,
+                        /* label= */ "");
+            }
+            out.flush();
+            mFile.finishWrite(fos);
+        } catch (IOException e) {
+            Log.w(TAG, "Failed to write catalog snapshot", e);
+            mFile.failWrite(fos);
+        }
+    }
+
+    /**
+     * 读取快照。
+     *
+     * @return 快照中的记录；文件不存在、已损坏或格式版本不匹配时返回{@code null}
+     */
+    @Nullable
+    List<Entry> read() {
+        try (FileInputStream in = mFile.openRead(); FileChannel channel = in.getChannel()) {
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0,
+                    channel.size());
+            if (buffer.getInt() != MAGIC || buffer.getInt() != FORMAT_VERSION) {
+                return null;
+            }
+            int count = buffer.getInt();
+            if (count < 0) {
+                return null;
+            }
+            List<Entry> entries = new ArrayList<>(count);
+            for (int i = 0; i < count; i++) {
+                int flags = buffer.get();
+                long versionCode = buffer.getLong();
+                ComponentName componentName =
+                        ComponentName.unflattenFromString(readString(buffer));
+                String label = readString(buffer);
+                if (componentName == null) {
+                    return null;
+                }
+                entries.add(new Entry(componentName, label, versionCode,
+                        (flags & FLAG_DISTRACTION_OPTIMIZED) != 0,
+                        (flags & FLAG_MEDIA_SERVICE) != 0,
+                        (flags & FLAG_LAUNCHABLE) != 0));
+            }
+            return Collections.unmodifiableList(entries);
+        } catch (FileNotFoundException e) {
+            return null;
+        } catch (IOException | BufferUnderflowException | IllegalArgumentException e) {
+            Log.w(TAG, "Discarding unreadable catalog snapshot", e);
+            return null;
+        }
+    }
+
+    private static void writeEntry(DataOutputStream out, int flags, long versionCode,
+            ComponentName componentName, String label) throws IOException {
+        out.writeByte(flags);
+        out.writeLong(versionCode);
+        writeString(out, componentName.flattenToString());
+        writeString(out, label);
+    }
+
+    private static void writeString(DataOutputStream out, String value) throws IOException {
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    private static String readString(ByteBuffer buffer) {
+        int length = buffer.getInt();
+        if (length < 0 || length > buffer.remaining()) {
+            throw new IllegalArgumentException("Invalid string length " + length);
+        }
+        ByteBuffer slice = buffer.slice();
+        slice.limit(length);
+        buffer.position(buffer.position() + length);
+        return StandardCharsets.UTF_8.decode(slice).toString();
+    }
+}
@@ -20,26 +20,15 @@ import static com.android.car.carlauncher.AppLauncherUtils.APP_TYPE_LAUNCHABLES;
 import static com.android.car.carlauncher.AppLauncherUtils.APP_TYPE_MEDIA_SERVICES;
 
 import android.app.Activity;
-import android.app.usage.UsageStats;
 import android.app.usage.UsageStatsManager;
 import android.car.Car;
 import android.car.CarNotConnectedException;
-import android.car.content.pm.CarPackageManager;
 import android.car.drivingstate.CarUxRestrictionsManager;
-import android.car.media.CarMediaManager;
-import android.content.BroadcastReceiver;
 import android.content.ComponentName;
 import android.content.Context;
 import android.content.Intent;
-import android.content.IntentFilter;
-import android.content.ServiceConnection;
-import android.content.pm.LauncherApps;
-import android.content.pm.PackageManager;
 import android.os.Build;
 import android.os.Bundle;
-import android.os.IBinder;
-import android.text.TextUtils;
-import android.text.format.DateUtils;
 import android.util.Log;
 
 import androidx.annotation.NonNull;
@@ -58,10 +47,12 @@ import com.android.car.ui.toolbar.MenuItem;
 import com.android.car.ui.toolbar.Toolbar;
 import com.android.car.ui.toolbar.ToolbarController;
 
+import java.io.File;
+import java.io.FileDescriptor;
+import java.io.PrintWriter;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
-import java.util.Comparator;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Set;
@@ -73,22 +64,31 @@ import android.util.Log; // Derry新增点
  * 显示应用程序网格的启动器活动。
  * 也就是 所有 的 车载系统应用 全部展示 的 主页 Activity哦
  */
-public class AppGridActivity extends Activity implements InsetsChangedListener {
+public class AppGridActivity extends Activity implements InsetsChangedListener,
+        AppLauncherUtils.MediaCenterPolicy {
     private static final String TAG = "AppGridActivity";
     private static final String MODE_INTENT_EXTRA = "com.android.car.carlauncher.mode";
+    private static final String RECENT_APPS_FILE_NAME = "recent_apps.bin";
+    // 保存的最近使用包数，多于列数以便过滤掉自身和不能启动的包后仍能填满一行
+    private static final int MAX_TRACKED_RECENT_APPS = 16;
 
     private int mColumnNumber;
     private boolean mShowAllApps = true;
     private final Set<String> mHiddenApps = new HashSet<>();
     private final Set<String> mCustomMediaComponents = new HashSet<>();
+    // 当前模式下显示在网格中的应用，最近使用的应用行只显示其中的应用
+    private final Set<AppMetaData> mVisibleApps = new HashSet<>();
+    private final AppCatalogRepository.Listener mCatalogListener = this::onAppsLoaded;
     private AppGridAdapter mGridAdapter;
-    private PackageManager mPackageManager;
+    private AppCatalogRepository mCatalogRepository;
+    private RecentAppsTracker mRecentAppsTracker;
+    // 最近一次加载完成的目录，包含所有模式的应用，模式或过滤条件变化时从中重新筛选
+    @Nullable
+    private LauncherAppsInfo mAppsInfo;
     private UsageStatsManager mUsageStatsManager;
-    private AppInstallUninstallReceiver mInstallUninstallReceiver;
-    private Car mCar;
+    private CarConnectionManager mCarConnection;
+    @Nullable
     private CarUxRestrictionsManager mCarUxRestrictionsManager;
-    private CarPackageManager mCarPackageManager;
-    private CarMediaManager mCarMediaManager;
     private Mode mMode;
 
     private enum Mode {
@@ -114,46 +114,50 @@ public class AppGridActivity extends Activity implements InsetsChangedListener {
         }
     }
 
-    private ServiceConnection mCarConnectionListener = new ServiceConnection() {
-        @Override
-        public void onServiceConnected(ComponentName name, IBinder service) {
-            try {
-                mCarUxRestrictionsManager = (CarUxRestrictionsManager) mCar.getCarManager(
-                        Car.CAR_UX_RESTRICTION_SERVICE);
-                mGridAdapter.setIsDistractionOptimizationRequired(
-                        mCarUxRestrictionsManager
-                                .getCurrentCarUxRestrictions()
-                                .isRequiresDistractionOptimization());
-                mCarUxRestrictionsManager.registerListener(
-                        restrictionInfo ->
-                                mGridAdapter.setIsDistractionOptimizationRequired(
-                                        restrictionInfo.isRequiresDistractionOptimization()));
-
-                mCarPackageManager = (CarPackageManager) mCar.getCarManager(Car.PACKAGE_SERVICE);
-                mCarMediaManager = (CarMediaManager) mCar.getCarManager(Car.CAR_MEDIA_SERVICE);
-                updateAppsLists();
-            } catch (CarNotConnectedException e) {
-                Log.e(TAG, "Car not connected in CarConnectionListener", e);
-            }
-        }
+    // 只在活动可见期间注册，汽车服务的连接本身由进程共享，不随活动断开
+    private final CarConnectionManager.Listener mCarConnectionListener =
+            new CarConnectionManager.Listener() {
+                @Override
+                public void onCarConnected(@NonNull Car car) {
+                    try {
+                        mCarUxRestrictionsManager = (CarUxRestrictionsManager) car.getCarManager(
+                                Car.CAR_UX_RESTRICTION_SERVICE);
+                        mGridAdapter.setIsDistractionOptimizationRequired(
+                                mCarUxRestrictionsManager
+                                        .getCurrentCarUxRestrictions()
+                                        .isRequiresDistractionOptimization());
+                        mCarUxRestrictionsManager.registerListener(
+                                restrictionInfo ->
+                                        mGridAdapter.setIsDistractionOptimizationRequired(
+                                                restrictionInfo
+                                                        .isRequiresDistractionOptimization()));
+                    } catch (CarNotConnectedException e) {
+                        Log.e(TAG, "Car not connected in CarConnectionListener", e);
+                    }
+                }
 
-        @Override
-        public void onServiceDisconnected(ComponentName name) {
-            mCarUxRestrictionsManager = null;
-            mCarPackageManager = null;
-        }
-    };
+                @Override
+                public void onCarDisconnected() {
+                    mCarUxRestrictionsManager = null;
+                }
+            };
 
     @Override
     protected void onCreate(@Nullable Bundle savedInstanceState) {
         super.onCreate(savedInstanceState);
         mColumnNumber = getResources().getInteger(R.integer.car_app_selector_column_number);
-        mPackageManager = getPackageManager();
         mUsageStatsManager = (UsageStatsManager) getSystemService(Context.USAGE_STATS_SERVICE);
-        mCar = Car.createCar(this, mCarConnectionListener);
+        mCarConnection = CarConnectionManager.getInstance(this);
         mHiddenApps.addAll(Arrays.asList(getResources().getStringArray(R.array.hidden_apps)));
         mCustomMediaComponents.addAll(
                 Arrays.asList(getResources().getStringArray(R.array.custom_media_packages)));
+        mCatalogRepository = AppCatalogRepository.getInstance(this);
+        // 此活动不处理语言区域变化，变化后会重新创建，在这里切换排序规则
+        if (AppLabelCollator.getInstance().setLocale(
+                getResources().getConfiguration().getLocales().get(0))) {
+            // 目录中的名称也是按旧的语言区域加载的
+            mCatalogRepository.refresh();
+        }
 
         setContentView(R.layout.app_grid_activity);
 
@@ -172,12 +176,15 @@ public class AppGridActivity extends Activity implements InsetsChangedListener {
                         i.setTitle(mShowAllApps
                                 ? R.string.hide_debug_apps
                                 : R.string.show_debug_apps);
-                        updateAppsLists();
+                        showApps();
                     })
                     .build()));
         }
 
-        mGridAdapter = new AppGridAdapter(this);
+        mGridAdapter = new AppGridAdapter(this, AppGridViewPool.getInflationContext(this));
+        mRecentAppsTracker = new RecentAppsTracker(getMainExecutor(), this::onRecentAppsChanged,
+                mUsageStatsManager, new File(getFilesDir(), RECENT_APPS_FILE_NAME),
+                MAX_TRACKED_RECENT_APPS);
         RecyclerView gridView = requireViewById(R.id.apps_grid);
 
         GridLayoutManager gridLayoutManager = new GridLayoutManager(this, mColumnNumber);
@@ -189,6 +196,9 @@ public class AppGridActivity extends Activity implements InsetsChangedListener {
         });
         gridView.setLayoutManager(gridLayoutManager);
         gridView.setAdapter(mGridAdapter);
+        // 使用CarLauncher空闲时预先填充的视图，第一帧无需在主线程上填充布局
+        gridView.setRecycledViewPool(AppGridViewPool.get(this));
+        mCatalogRepository.addListener(mCatalogListener);
 
 
         // Derry新增点
@@ -205,15 +215,19 @@ public class AppGridActivity extends Activity implements InsetsChangedListener {
 
     @Override
     protected void onDestroy() {
-        if (mCar != null && mCar.isConnected()) {
-            mCar.disconnect();
-            mCar = null;
-        }
+        // 目录在进程中共享，不随活动销毁
+        mCatalogRepository.removeListener(mCatalogListener);
+        mRecentAppsTracker.destroy();
         super.onDestroy();
     }
 
     private void updateMode() {
+        Mode previousMode = mMode;
         mMode = parseMode(getIntent());
+        if (previousMode != null && previousMode != mMode && mAppsInfo != null) {
+            // 启动回调在点击时才读取模式，切换模式只需要重新筛选
+            showApps();
+        }
         setTitle(mMode.mTitleStringId);
         CarUi.requireToolbar(this).setTitle(mMode.mTitleStringId);
     }
@@ -237,49 +251,60 @@ public class AppGridActivity extends Activity implements InsetsChangedListener {
         super.onResume();
         // 使用onResume（）刷新最近使用的应用程序，因为即使在正在启动的应用程序崩溃/没有覆盖整个屏幕。
         updateAppsLists();
+        mRecentAppsTracker.refresh();
     }
 
-    /** 更新所有应用的列表以及最近使用的应用的列表。 */
+    /**
+     * 更新所有应用的列表以及最近使用的应用的列表。
+     * 目录由 {@link AppCatalogRepository} 在进程中共享，已经加载过时只是读取内存中的目录，
+     * 结果通过监听器交给适配器。
+     */
     private void updateAppsLists() {
+        mCatalogRepository.load();
+    }
+
+    private void onAppsLoaded(LauncherAppsInfo appsInfo) {
+        mAppsInfo = appsInfo;
+        showApps();
+    }
+
+    /** 按当前的模式和过滤条件从目录中筛选出要显示的应用，不需要重新扫描。 */
+    private void showApps() {
+        if (mAppsInfo == null) {
+            return;
+        }
         Set<String> appsToHide = mShowAllApps ? Collections.emptySet() : mHiddenApps;
-        LauncherAppsInfo appsInfo = AppLauncherUtils.getLauncherApps(appsToHide,
-                mCustomMediaComponents,
-                mMode.mAppTypes,
-                mMode.mOpenMediaCenter,
-                getSystemService(LauncherApps.class),
-                mCarPackageManager,
-                mPackageManager,
-                mCarMediaManager);
-        mGridAdapter.setAllApps(appsInfo.getLaunchableComponentsList());
-        mGridAdapter.setMostRecentApps(getMostRecentApps(appsInfo));
+        List<AppMetaData> apps = AppLauncherUtils.filterLaunchables(mAppsInfo, appsToHide,
+                mCustomMediaComponents, mMode.mAppTypes);
+        mVisibleApps.clear();
+        mVisibleApps.addAll(apps);
+        mGridAdapter.setAllApps(apps);
+        mGridAdapter.setMostRecentApps(getMostRecentApps(mAppsInfo));
+    }
+
+    @Override
+    public boolean shouldOpenMediaCenter() {
+        return mMode.mOpenMediaCenter;
+    }
+
+    private void onRecentAppsChanged(List<RecentAppsTracker.RecentApp> recentApps) {
+        if (mAppsInfo != null) {
+            mGridAdapter.setMostRecentApps(getMostRecentApps(mAppsInfo));
+        }
     }
 
     @Override
     protected void onStart() {
         super.onStart();
-        // register broadcast receiver for package installation and uninstallation
-        mInstallUninstallReceiver = new AppInstallUninstallReceiver();
-        IntentFilter filter = new IntentFilter();
-        filter.addAction(Intent.ACTION_PACKAGE_ADDED);
-        filter.addAction(Intent.ACTION_PACKAGE_CHANGED);
-        filter.addAction(Intent.ACTION_PACKAGE_REPLACED);
-        filter.addAction(Intent.ACTION_PACKAGE_REMOVED);
-        filter.addDataScheme("package");
-        registerReceiver(mInstallUninstallReceiver, filter);
-
-        // 连接到汽车服务
-        mCar.connect();
+        // 已经连接时立即回调，不会重新连接汽车服务
+        mCarConnection.addListener(mCarConnectionListener);
     }
 
     @Override
     protected void onStop() {
-        super.onPause();
-        // 断开与应用安装/卸载接收器的连接
-        if (mInstallUninstallReceiver != null) {
-            unregisterReceiver(mInstallUninstallReceiver);
-            mInstallUninstallReceiver = null;
-        }
-        // 与汽车听众断开连接
+        super.onStop();
+        // 只注销监听器，汽车服务的连接保持
+        mCarConnection.removeListener(mCarConnectionListener);
         try {
             if (mCarUxRestrictionsManager != null) {
                 mCarUxRestrictionsManager.unregisterListener();
@@ -287,9 +312,7 @@ public class AppGridActivity extends Activity implements InsetsChangedListener {
         } catch (CarNotConnectedException e) {
             Log.e(TAG, "Error unregistering listeners", e);
         }
-        if (mCar != null) {
-            mCar.disconnect();
-        }
+        mCarUxRestrictionsManager = null;
     }
 
     /**
@@ -301,30 +324,15 @@ public class AppGridActivity extends Activity implements InsetsChangedListener {
             return apps;
         }
 
-        // 获取从1年前开始的使用情况统计数据，返回如下条目：
-        // returning entries like:
-        // "During 2017 App A is last used at 2017/12/15 18:03"
-        // "During 2017 App B is last used at 2017/6/15 10:00"
-        // "During 2018 App A is last used at 2018/1/1 15:12"
-        List<UsageStats> stats =
-                mUsageStatsManager.queryUsageStats(
-                        UsageStatsManager.INTERVAL_YEARLY,
-                        System.currentTimeMillis() - DateUtils.YEAR_IN_MILLIS,
-                        System.currentTimeMillis());
-
-        if (stats == null || stats.size() == 0) {
-            return apps; // 空列表
-        }
-
-        stats.sort(new LastTimeUsedComparator());
-
+        // 由RecentAppsTracker增量维护，已按最近使用时间降序排列
+        List<RecentAppsTracker.RecentApp> recentApps = mRecentAppsTracker.getRecentApps();
         int currentIndex = 0;
         int itemsAdded = 0;
-        int statsSize = stats.size();
-        int itemCount = Math.min(mColumnNumber, statsSize);
-        while (itemsAdded < itemCount && currentIndex < statsSize) {
-            UsageStats usageStats = stats.get(currentIndex);
-            String packageName = usageStats.mPackageName;
+        int recentAppsSize = recentApps.size();
+        int itemCount = Math.min(mColumnNumber, recentAppsSize);
+        while (itemsAdded < itemCount && currentIndex < recentAppsSize) {
+            RecentAppsTracker.RecentApp recentApp = recentApps.get(currentIndex);
+            String packageName = recentApp.mPackageName;
             currentIndex++;
 
             // 不包括自己
@@ -334,26 +342,24 @@ public class AppGridActivity extends Activity implements InsetsChangedListener {
 
             // TODO(b/136222320): 每个包都可以获得UsageStats，但一个包可能包含多个媒体服务。
             // 我们需要找到一种方法来获取每个服务的使用率统计数据。
-            ComponentName componentName = AppLauncherUtils.getMediaSource(mPackageManager,
-                    packageName);
+            // 使用扫描时建立的包名索引，不再为每一行访问PackageManager
+            ComponentName componentName = appsInfo.getMediaSource(packageName);
             // 免除媒体服务的后台和启动器检查
             if (!appsInfo.isMediaService(componentName)) {
                 // 不要包括仅在后台运行的应用程序
-                if (usageStats.getTotalTimeInForeground() == 0) {
+                if (!recentApp.mUsedInForeground) {
                     continue;
                 }
 
                 // do not include apps that don't support starting from launcher
-                Intent intent = getPackageManager().getLaunchIntentForPackage(packageName);
-                if (intent == null || !intent.hasCategory(Intent.CATEGORY_LAUNCHER)) {
+                if (appsInfo.getLauncherActivity(packageName) == null) {
                     continue;
                 }
             }
 
             AppMetaData app = appsInfo.getAppMetaData(componentName);
-            // 防止重复条目
-            // e.g. app is used at 2017/12/31 23:59, and 2018/01/01 00:00
-            if (app != null && !apps.contains(app)) {
+            // 只显示当前模式下可见的应用，并防止重复条目
+            if (app != null && mVisibleApps.contains(app) && !apps.contains(app)) {
                 apps.add(app);
                 itemsAdded++;
             }
@@ -361,6 +367,14 @@ public class AppGridActivity extends Activity implements InsetsChangedListener {
         return apps;
     }
 
+    @Override
+    public void dump(String prefix, FileDescriptor fd, PrintWriter writer, String[] args) {
+        super.dump(prefix, fd, writer, args);
+        mCarConnection.dump(prefix + "  ", writer);
+        mCatalogRepository.dump(prefix + "  ", writer);
+        mRecentAppsTracker.dump(prefix + "  ", writer);
+    }
+
     @Override
     public void onCarUiInsetsChanged(Insets insets) {
         requireViewById(R.id.apps_grid)
@@ -372,30 +386,4 @@ public class AppGridActivity extends Activity implements InsetsChangedListener {
         requireViewById(android.R.id.content)
                 .setPadding(insets.getLeft(), 0, insets.getRight(), 0);
     }
-
-    /**
-     *｛@link UsageStats｝的比较器，按“上次使用”属性对列表进行排序按降序排列。
-     */
-    private static class LastTimeUsedComparator implements Comparator<UsageStats> {
-        @Override
-        public int compare(UsageStats stat1, UsageStats stat2) {
-            Long time1 = stat1.getLastTimeUsed();
-            Long time2 = stat2.getLastTimeUsed();
-            return time2.compareTo(time1);
-        }
-    }
-
-    private class AppInstallUninstallReceiver extends BroadcastReceiver {
-        @Override
-        public void onReceive(Context context, Intent intent) {
-            String packageName = intent.getData().getSchemeSpecificPart();
-
-            if (TextUtils.isEmpty(packageName)) {
-                Log.e(TAG, "系统发送了空应用安装/卸载广播");
-                return;
-            }
-
-            updateAppsLists();
-        }
-    }
 }
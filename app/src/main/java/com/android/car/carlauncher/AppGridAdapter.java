@@ -24,9 +24,15 @@ import android.view.LayoutInflater;
 import android.view.View;
 import android.view.ViewGroup;
 
+import androidx.annotation.NonNull;
+import androidx.annotation.VisibleForTesting;
+import androidx.recyclerview.widget.AsyncDifferConfig;
+import androidx.recyclerview.widget.AsyncListDiffer;
+import androidx.recyclerview.widget.DiffUtil;
+import androidx.recyclerview.widget.ListUpdateCallback;
 import androidx.recyclerview.widget.RecyclerView;
 
-import java.util.Collections;
+import java.util.ArrayList;
 import java.util.List;
 
 /**
@@ -38,32 +44,110 @@ final class AppGridAdapter extends RecyclerView.Adapter<RecyclerView.ViewHolder>
     private static final long RECENT_APPS_ID = 0;
     private static final String TAG = "AppGridAdapter";
 
+    /** 局部绑定的类型。 */
+    enum Payload {
+        /** 只有驾驶限制状态变化：更新图标透明度和点击行为，不重新绑定名称和图标。 */
+        DISTRACTION_OPTIMIZATION_REQUIRED
+    }
+
+    /**
+     * 以ComponentName判断是否为同一项，只有显示名称、分心优化状态或图标版本变化时才重新绑定。
+     */
+    private static final DiffUtil.ItemCallback<AppMetaData> DIFF_CALLBACK =
+            new DiffUtil.ItemCallback<AppMetaData>() {
+                @Override
+                public boolean areItemsTheSame(@NonNull AppMetaData oldItem,
+                        @NonNull AppMetaData newItem) {
+                    return oldItem.getComponentName().equals(newItem.getComponentName());
+                }
+
+                @Override
+                public boolean areContentsTheSame(@NonNull AppMetaData oldItem,
+                        @NonNull AppMetaData newItem) {
+                    return oldItem.getDisplayName().equals(newItem.getDisplayName())
+                            && oldItem.getIsDistractionOptimized()
+                                    == newItem.getIsDistractionOptimized()
+                            && oldItem.getIcon().getVersionCode()
+                                    == newItem.getIcon().getVersionCode()
+                            // 从快照恢复的项目可能没有图标，启动回调也可能缺少汽车服务，
+                            // 实时扫描的结果到达后需要重新绑定一次
+                            && oldItem.getIcon().isCacheOnly()
+                                    == newItem.getIcon().isCacheOnly();
+                }
+            };
+
     private final Context mContext;
+    // 用于填充视图的上下文，可能与mContext不同，见AppGridViewPool
+    private final Context mInflationContext;
     private final int mColumnNumber;
     private final LayoutInflater mInflater;
+    private final AppItemViewHolder.BindingResources mBindingResources;
 
-    private List<AppMetaData> mApps;
+    // 在后台线程上比较新旧列表，只分发变化的位置
+    private final AsyncListDiffer<AppMetaData> mAppsDiffer;
     private List<AppMetaData> mMostRecentApps;
     private boolean mIsDistractionOptimizationRequired;
 
     AppGridAdapter(Context context) {
+        this(context, context);
+    }
+
+    /**
+     * @param context          视图持有者点击时用于启动应用和显示提示的上下文
+     * @param inflationContext 用于填充视图的上下文；视图在共享的池中跨活动复用时不能引用活动
+     */
+    AppGridAdapter(Context context, Context inflationContext) {
         mContext = context;
-        mInflater = LayoutInflater.from(context);
+        mInflationContext = inflationContext;
+        mInflater = LayoutInflater.from(inflationContext);
+        mBindingResources = new AppItemViewHolder.BindingResources(context.getResources());
         mColumnNumber =
                 mContext.getResources().getInteger(R.integer.car_app_selector_column_number);
         // 稳定的ID提高了性能，使旋转工作更好。
         setHasStableIds(true);
+        mAppsDiffer = new AsyncListDiffer<>(new AppsListUpdateCallback(),
+                new AsyncDifferConfig.Builder<>(DIFF_CALLBACK).build());
     }
 
     void setIsDistractionOptimizationRequired(boolean isDistractionOptimizationRequired) {
+        if (mIsDistractionOptimizationRequired == isDistractionOptimizationRequired) {
+            return;
+        }
         mIsDistractionOptimizationRequired = isDistractionOptimizationRequired;
-        sortAllApps();
-        notifyDataSetChanged();
+        // 排序只依赖显示名称，顺序不变；分心优化的应用无论是否驾驶都可以启动，不受影响
+        if (hasRecentlyUsedApps() && containsUnoptimizedApp(mMostRecentApps)) {
+            notifyItemChanged(0, Payload.DISTRACTION_OPTIMIZATION_REQUIRED);
+        }
+        // 相邻的未优化应用合并为一次范围通知
+        List<AppMetaData> apps = mAppsDiffer.getCurrentList();
+        int offset = hasRecentlyUsedApps() ? 1 : 0;
+        int runStart = -1;
+        for (int i = 0; i <= apps.size(); i++) {
+            boolean unoptimized = i < apps.size() && !apps.get(i).getIsDistractionOptimized();
+            if (unoptimized && runStart < 0) {
+                runStart = i;
+            } else if (!unoptimized && runStart >= 0) {
+                notifyItemRangeChanged(runStart + offset, i - runStart,
+                        Payload.DISTRACTION_OPTIMIZATION_REQUIRED);
+                runStart = -1;
+            }
+        }
     }
 
     void setMostRecentApps(@Nullable List<AppMetaData> mostRecentApps) {
+        boolean hadRecentApps = hasRecentlyUsedApps();
+        List<AppMetaData> oldRecentApps = mMostRecentApps;
         mMostRecentApps = mostRecentApps;
-        notifyDataSetChanged();
+        boolean hasRecentApps = hasRecentlyUsedApps();
+        if (hadRecentApps && hasRecentApps) {
+            if (!isSameList(oldRecentApps, mostRecentApps)) {
+                notifyItemChanged(0);
+            }
+        } else if (hasRecentApps) {
+            notifyItemInserted(0);
+        } else if (hadRecentApps) {
+            notifyItemRemoved(0);
+        }
     }
 
     @Override
@@ -71,26 +155,39 @@ final class AppGridAdapter extends RecyclerView.Adapter<RecyclerView.ViewHolder>
         if (position == 0 && hasRecentlyUsedApps()) {
             return RECENT_APPS_ID;
         }
-        if (mApps == null) {
+        List<AppMetaData> apps = mAppsDiffer.getCurrentList();
+        if (apps.isEmpty()) {
             Log.w(TAG, "未设置应用列表");
             return RecyclerView.NO_ID;
         }
         int index = hasRecentlyUsedApps() ? position - 1 : position;
-        if (index < 0 || index >= mApps.size()) {
+        if (index < 0 || index >= apps.size()) {
             Log.w(TAG, "索引超出范围");
             return RecyclerView.NO_ID;
         }
-        ComponentName componentName = mApps.get(index).getComponentName();
+        ComponentName componentName = apps.get(index).getComponentName();
         long id = componentName.getPackageName().hashCode();
         id <<= Integer.SIZE;
         id |= componentName.getClassName().hashCode();
         return id;
     }
 
+    /**
+     * 设置所有应用。新列表排序后与当前列表在后台比较，只有变化的位置会被重新绑定。
+     *
+     * @param apps Pass {@code null} 将立即清空列表
+     */
     void setAllApps(@Nullable List<AppMetaData> apps) {
-        mApps = apps;
-        sortAllApps();
-        notifyDataSetChanged();
+        setAllApps(apps, /* commitCallback= */ null);
+    }
+
+    /**
+     * 与 {@link #setAllApps(List)} 相同，比较结果分发到适配器之后在主线程上运行
+     * {@code commitCallback}。
+     */
+    @VisibleForTesting
+    void setAllApps(@Nullable List<AppMetaData> apps, @Nullable Runnable commitCallback) {
+        mAppsDiffer.submitList(apps != null ? sortApps(apps) : null, commitCallback);
     }
 
     public int getSpanSizeLookup(int position) {
@@ -113,10 +210,10 @@ final class AppGridAdapter extends RecyclerView.Adapter<RecyclerView.ViewHolder>
         if (viewType == RECENT_APPS_TYPE) {
             View view =
                     mInflater.inflate(R.layout.recent_apps_row, parent, /* attachToRoot= */ false);
-            return new RecentAppsRowViewHolder(view, mContext);
+            return new RecentAppsRowViewHolder(view, mInflationContext, mBindingResources);
         } else {
             View view = mInflater.inflate(R.layout.app_item, parent, /* attachToRoot= */ false);
-            return new AppItemViewHolder(view, mContext);
+            return new AppItemViewHolder(view, mInflationContext, mBindingResources);
         }
     }
 
@@ -124,13 +221,51 @@ final class AppGridAdapter extends RecyclerView.Adapter<RecyclerView.ViewHolder>
     public void onBindViewHolder(RecyclerView.ViewHolder holder, int position) {
         switch (holder.getItemViewType()) {
             case RECENT_APPS_TYPE:
-                ((RecentAppsRowViewHolder) holder).bind(
-                        mMostRecentApps, mIsDistractionOptimizationRequired);
+                RecentAppsRowViewHolder rowHolder = (RecentAppsRowViewHolder) holder;
+                rowHolder.setHostContext(mContext);
+                rowHolder.bind(mMostRecentApps, mIsDistractionOptimizationRequired);
                 break;
             case APP_ITEM_TYPE:
                 int index = hasRecentlyUsedApps() ? position - 1 : position;
-                AppMetaData app = mApps.get(index);
-                ((AppItemViewHolder) holder).bind(app, mIsDistractionOptimizationRequired);
+                AppMetaData app = mAppsDiffer.getCurrentList().get(index);
+                AppItemViewHolder itemHolder = (AppItemViewHolder) holder;
+                itemHolder.setHostContext(mContext);
+                itemHolder.bind(app, mIsDistractionOptimizationRequired);
+                break;
+            default:
+        }
+    }
+
+    @Override
+    public void onBindViewHolder(RecyclerView.ViewHolder holder, int position,
+            List<Object> payloads) {
+        if (payloads.isEmpty()) {
+            onBindViewHolder(holder, position);
+            return;
+        }
+        // 同一帧内可能合并了多个载荷，目前只有一种局部绑定，取最新的状态即可
+        switch (holder.getItemViewType()) {
+            case RECENT_APPS_TYPE:
+                ((RecentAppsRowViewHolder) holder).updateDistractionOptimizationRequired(
+                        mIsDistractionOptimizationRequired);
+                break;
+            case APP_ITEM_TYPE:
+                ((AppItemViewHolder) holder).updateDistractionOptimizationRequired(
+                        mIsDistractionOptimizationRequired);
+                break;
+            default:
+        }
+    }
+
+    @Override
+    public void onViewRecycled(RecyclerView.ViewHolder holder) {
+        // 回收的视图持有者可能进入共享的池，不能继续引用此适配器所在的活动
+        switch (holder.getItemViewType()) {
+            case RECENT_APPS_TYPE:
+                ((RecentAppsRowViewHolder) holder).setHostContext(mInflationContext);
+                break;
+            case APP_ITEM_TYPE:
+                ((AppItemViewHolder) holder).setHostContext(mInflationContext);
                 break;
             default:
         }
@@ -139,16 +274,68 @@ final class AppGridAdapter extends RecyclerView.Adapter<RecyclerView.ViewHolder>
     @Override
     public int getItemCount() {
         // 如果有任何最近启动的应用程序，请添加“最近使用的应用程序行项目”
-        return (mApps == null ? 0 : mApps.size()) + (hasRecentlyUsedApps() ? 1 : 0);
+        return mAppsDiffer.getCurrentList().size() + (hasRecentlyUsedApps() ? 1 : 0);
     }
 
     private boolean hasRecentlyUsedApps() {
         return mMostRecentApps != null && mMostRecentApps.size() > 0;
     }
 
-    private void sortAllApps() {
-        if (mApps != null) {
-            Collections.sort(mApps, AppLauncherUtils.ALPHABETICAL_COMPARATOR);
+    private static boolean containsUnoptimizedApp(List<AppMetaData> apps) {
+        for (AppMetaData app : apps) {
+            if (!app.getIsDistractionOptimized()) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static boolean isSameList(List<AppMetaData> oldApps, List<AppMetaData> newApps) {
+        if (oldApps.size() != newApps.size()) {
+            return false;
+        }
+        for (int i = 0; i < oldApps.size(); i++) {
+            AppMetaData oldApp = oldApps.get(i);
+            AppMetaData newApp = newApps.get(i);
+            if (!DIFF_CALLBACK.areItemsTheSame(oldApp, newApp)
+                    || !DIFF_CALLBACK.areContentsTheSame(oldApp, newApp)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /** 返回排序后的新列表。提交给差分器的列表之后不能再被修改。 */
+    private static List<AppMetaData> sortApps(List<AppMetaData> apps) {
+        List<AppMetaData> sorted = new ArrayList<>(apps);
+        sorted.sort(AppLauncherUtils.ALPHABETICAL_COMPARATOR);
+        return sorted;
+    }
+
+    /** 把应用列表中的位置换算成适配器位置：有最近使用的应用行时，应用从第1项开始。 */
+    private final class AppsListUpdateCallback implements ListUpdateCallback {
+        private int offset(int position) {
+            return hasRecentlyUsedApps() ? position + 1 : position;
+        }
+
+        @Override
+        public void onInserted(int position, int count) {
+            notifyItemRangeInserted(offset(position), count);
+        }
+
+        @Override
+        public void onRemoved(int position, int count) {
+            notifyItemRangeRemoved(offset(position), count);
+        }
+
+        @Override
+        public void onMoved(int fromPosition, int toPosition) {
+            notifyItemMoved(offset(fromPosition), offset(toPosition));
+        }
+
+        @Override
+        public void onChanged(int position, int count, @Nullable Object payload) {
+            notifyItemRangeChanged(offset(position), count, payload);
         }
     }
 }
\ No newline at end of file
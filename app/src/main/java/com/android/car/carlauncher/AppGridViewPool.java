@@ -0,0 +1,156 @@
+/*
+ * Copyright (C) 2022 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.car.carlauncher;
+
+import android.content.Context;
+import android.content.pm.ActivityInfo;
+import android.content.res.Configuration;
+import android.os.Process;
+import android.util.Log;
+import android.view.ContextThemeWrapper;
+import android.widget.FrameLayout;
+
+import androidx.annotation.MainThread;
+import androidx.annotation.NonNull;
+import androidx.recyclerview.widget.RecyclerView;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * 进程级共享的应用网格 {@link RecyclerView.RecycledViewPool}。
+ *
+ * <p>{@link CarLauncher} 空闲时在后台线程上预先填充布局，创建足够填满一屏的应用项和一个最近使用的应用行，
+ * 因此打开 {@link AppGridActivity} 时第一帧可以直接从池中取得视图持有者，不必在主线程上填充布局。
+ *
+ * <p>池中的视图都用应用上下文加上 {@link AppGridActivity} 的主题填充，不引用任何活动，
+ * 可以在活动实例之间复用；视图持有者点击时使用的上下文在绑定时由适配器设置。
+ * 影响资源的配置（夜间模式、密度、字体大小、语言区域）变化后，池中的视图会被丢弃。
+ *
+ * <p>除 {@link #prewarm} 中的填充外，所有方法都必须在主线程调用。
+ */
+final class AppGridViewPool {
+    private static final String TAG = "AppGridViewPool";
+
+    // 这些配置变化会改变填充出的视图，之前填充的视图不能再使用
+    private static final int INFLATION_CONFIG_CHANGES = ActivityInfo.CONFIG_UI_MODE
+            | ActivityInfo.CONFIG_DENSITY | ActivityInfo.CONFIG_FONT_SCALE
+            | ActivityInfo.CONFIG_LOCALE | ActivityInfo.CONFIG_LAYOUT_DIRECTION;
+
+    private static final ExecutorService INFLATION_EXECUTOR = Executors.newSingleThreadExecutor(
+            runnable -> new Thread(() -> {
+                Process.setThreadPriority(Process.THREAD_PRIORITY_BACKGROUND);
+                runnable.run();
+            }, TAG));
+
+    private static RecyclerView.RecycledViewPool sPool;
+    private static Context sInflationContext;
+    private static Configuration sInflationConfiguration;
+    // 每次丢弃池中视图时递增，用于丢弃按旧配置填充的结果
+    private static int sGeneration;
+    private static boolean sPrewarmed;
+
+    private AppGridViewPool() {
+    }
+
+    /**
+     * 返回共享的池。如果池中的视图是按与{@code context}不兼容的配置填充的，先清空。
+     *
+     * <p>必须在 {@link RecyclerView#setAdapter} 之后再设置给网格：
+     * 没有被任何RecyclerView使用的池会在设置适配器时被清空。
+     */
+    @MainThread
+    @NonNull
+    static RecyclerView.RecycledViewPool get(@NonNull Context context) {
+        ensureCompatible(context);
+        return sPool;
+    }
+
+    /**
+     * 返回用于填充应用网格视图的上下文：应用上下文加上 {@link AppGridActivity} 的主题。
+     */
+    @MainThread
+    @NonNull
+    static Context getInflationContext(@NonNull Context context) {
+        ensureCompatible(context);
+        return sInflationContext;
+    }
+
+    /**
+     * 在后台线程上填充一屏的视图，完成后在主线程上放入池中。已经预热过时不做任何事。
+     */
+    @MainThread
+    static void prewarm(@NonNull Context context) {
+        ensureCompatible(context);
+        if (sPrewarmed) {
+            return;
+        }
+        sPrewarmed = true;
+        Context inflationContext = sInflationContext;
+        int generation = sGeneration;
+        int itemCount = getMaxAppItems(inflationContext);
+        INFLATION_EXECUTOR.execute(() -> {
+            List<RecyclerView.ViewHolder> holders = new ArrayList<>(itemCount + 1);
+            try {
+                // 与打开网格时使用同一个适配器创建视图持有者，保证布局参数和视图类型一致
+                AppGridAdapter adapter = new AppGridAdapter(inflationContext);
+                FrameLayout parent = new FrameLayout(inflationContext);
+                holders.add(adapter.createViewHolder(parent, AppGridAdapter.RECENT_APPS_TYPE));
+                for (int i = 0; i < itemCount; i++) {
+                    holders.add(adapter.createViewHolder(parent, AppGridAdapter.APP_ITEM_TYPE));
+                }
+            } catch (RuntimeException e) {
+                // 预热只是优化，失败时打开网格会按原来的方式在主线程上填充
+                Log.w(TAG, "Unable to prewarm app grid views", e);
+            }
+            inflationContext.getMainExecutor().execute(() -> {
+                if (generation != sGeneration) {
+                    return;
+                }
+                for (RecyclerView.ViewHolder holder : holders) {
+                    sPool.putRecycledView(holder);
+                }
+                Log.d(TAG, "Prewarmed " + holders.size() + " app grid views");
+            });
+        });
+    }
+
+    private static void ensureCompatible(Context context) {
+        Configuration configuration = context.getResources().getConfiguration();
+        if (sPool == null) {
+            sPool = new RecyclerView.RecycledViewPool();
+        } else if ((sInflationConfiguration.diff(configuration) & INFLATION_CONFIG_CHANGES) == 0) {
+            return;
+        } else {
+            sPool.clear();
+            sGeneration++;
+            sPrewarmed = false;
+        }
+        sInflationConfiguration = new Configuration(configuration);
+        sInflationContext = new ContextThemeWrapper(context.getApplicationContext(),
+                R.style.Theme_Launcher_AppGridActivity);
+        sPool.setMaxRecycledViews(AppGridAdapter.APP_ITEM_TYPE, getMaxAppItems(context));
+        sPool.setMaxRecycledViews(AppGridAdapter.RECENT_APPS_TYPE, 1);
+    }
+
+    private static int getMaxAppItems(Context context) {
+        return context.getResources().getInteger(R.integer.car_app_selector_column_number)
+                * context.getResources().getInteger(R.integer.app_grid_prewarmed_row_count);
+    }
+}
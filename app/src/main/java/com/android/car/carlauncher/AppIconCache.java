@@ -0,0 +1,339 @@
+/*
+ * Copyright (C) 2022 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.car.carlauncher;
+
+import android.content.ComponentName;
+import android.content.pm.ActivityInfo;
+import android.content.res.Configuration;
+import android.content.res.Resources;
+import android.graphics.Bitmap;
+import android.graphics.BitmapFactory;
+import android.graphics.Canvas;
+import android.graphics.drawable.BitmapDrawable;
+import android.graphics.drawable.Drawable;
+import android.util.AtomicFile;
+import android.util.Log;
+import android.util.LruCache;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import androidx.annotation.WorkerThread;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * 启动器活动和媒体服务图标的两级缓存。
+ *
+ * <p>内存层是按字节数限制大小的LRU，保存按网格单元尺寸（{@code R.layout.app_item}
+ * 中图标的大小）栅格化后的位图。磁盘层以组件和versionCode为键保存PNG，
+ * 因此未更新的应用不会再为图标访问PackageManager。
+ *
+ * <p>栅格化的结果取决于密度和夜间模式：磁盘层按这两者分目录保存，配置变化后清空内存层，
+ * 之后的图标从对应配置的目录加载。versionCode不变的更新（例如组件启用状态变化）
+ * 由包变化广播通过 {@link #invalidatePackage} 显式失效。
+ *
+ * <p>此类是线程安全的。
+ */
+final class AppIconCache {
+    private static final String TAG = "AppIconCache";
+
+    private static final String FILE_SUFFIX = ".png";
+    // 包名和类名中都不会出现，因此按包查找文件时不会匹配到名称相似的包
+    private static final char FILE_COMPONENT_SEPARATOR = '+';
+
+    // 这些配置变化会改变栅格化的结果，之前缓存的图标不能再使用
+    private static final int ICON_CONFIG_CHANGES =
+            ActivityInfo.CONFIG_UI_MODE | ActivityInfo.CONFIG_DENSITY;
+
+    private final Resources mResources;
+    private final LruCache<String, Bitmap> mMemoryCache;
+    private final File mBaseDir;
+
+    // 以下字段在配置变化时一起更新，读写都持有this
+    private Configuration mConfiguration;
+    private File mDiskDir;
+    private int mIconSize;
+    private int mGeneration;
+
+    private final AtomicInteger mMemoryHits = new AtomicInteger();
+    private final AtomicInteger mDiskHits = new AtomicInteger();
+    private final AtomicInteger mMisses = new AtomicInteger();
+    private final AtomicInteger mEvictions = new AtomicInteger();
+
+    /**
+     * @param resources      用于读取网格单元尺寸和创建图标的Drawable，配置变化时应随之更新，
+     *                       例如应用的Resources
+     * @param diskDir        磁盘层所在的目录，不存在时会自动创建
+     * @param maxMemoryBytes 内存层最多占用的字节数
+     */
+    AppIconCache(@NonNull Resources resources, @NonNull File diskDir, int maxMemoryBytes) {
+        mResources = resources;
+        mBaseDir = diskDir;
+        applyConfiguration(resources.getConfiguration());
+        mMemoryCache = new LruCache<String, Bitmap>(maxMemoryBytes) {
+            @Override
+            protected int sizeOf(String key, Bitmap value) {
+                return value.getByteCount();
+            }
+
+            @Override
+            protected void entryRemoved(boolean evicted, String key, Bitmap oldValue,
+                    Bitmap newValue) {
+                if (evicted) {
+                    mEvictions.incrementAndGet();
+                }
+            }
+        };
+    }
+
+    /**
+     * 返回给定组件的图标。依次查找内存层和磁盘层，都未命中时通过{@code loader}加载原始图标，
+     * 栅格化后写入两级缓存。
+     *
+     * @param versionCode 组件所在包的versionCode；
+     *                    为{@link AppMetaData#UNKNOWN_VERSION}时不使用磁盘层
+     * @param loader      从PackageManager加载原始图标；为{@code null}时只查找缓存
+     * @return 栅格化后的图标；未命中缓存且{@code loader}没有返回图标时为{@code null}
+     */
+    @WorkerThread
+    @Nullable
+    Bitmap getIcon(@NonNull ComponentName componentName, long versionCode,
+            @Nullable Supplier<Drawable> loader) {
+        Bitmap bitmap = getCachedIcon(componentName, versionCode);
+        if (bitmap != null) {
+            return bitmap;
+        }
+
+        mMisses.incrementAndGet();
+        Drawable drawable = loader != null ? loader.get() : null;
+        if (drawable == null) {
+            return null;
+        }
+        int generation;
+        File diskDir;
+        synchronized (this) {
+            generation = mGeneration;
+            diskDir = mDiskDir;
+            bitmap = rasterize(drawable, mIconSize);
+        }
+        putInMemory(generation, getKey(componentName, versionCode), bitmap);
+        if (versionCode != AppMetaData.UNKNOWN_VERSION) {
+            writeToDisk(diskDir, componentName, versionCode, bitmap);
+        }
+        return bitmap;
+    }
+
+    /**
+     * 与 {@link #getIcon} 相同，但返回可以直接设置给视图的Drawable。
+     */
+    @WorkerThread
+    @Nullable
+    Drawable getIconDrawable(@NonNull ComponentName componentName, long versionCode,
+            @Nullable Supplier<Drawable> loader) {
+        return toDrawable(getIcon(componentName, versionCode, loader));
+    }
+
+    /**
+     * 只从缓存中查找图标，不访问PackageManager。
+     *
+     * @return 缓存的图标；两级缓存都未命中时为{@code null}
+     */
+    @WorkerThread
+    @Nullable
+    private Bitmap getCachedIcon(@NonNull ComponentName componentName, long versionCode) {
+        String key = getKey(componentName, versionCode);
+        Bitmap bitmap = mMemoryCache.get(key);
+        if (bitmap != null) {
+            mMemoryHits.incrementAndGet();
+            return bitmap;
+        }
+        if (versionCode == AppMetaData.UNKNOWN_VERSION) {
+            return null;
+        }
+        int generation;
+        File diskDir;
+        synchronized (this) {
+            generation = mGeneration;
+            diskDir = mDiskDir;
+        }
+        bitmap = BitmapFactory.decodeFile(getFile(diskDir, componentName, versionCode).getPath());
+        if (bitmap == null) {
+            return null;
+        }
+        mDiskHits.incrementAndGet();
+        putInMemory(generation, key, bitmap);
+        return bitmap;
+    }
+
+    /**
+     * 如果配置变化影响栅格化的结果，清空内存层，之后从新配置对应的磁盘目录加载图标。
+     * 其它配置的磁盘目录保留，切换回去时仍然可以命中。
+     */
+    void onConfigurationChanged(@NonNull Configuration newConfig) {
+        synchronized (this) {
+            if ((mConfiguration.diff(newConfig) & ICON_CONFIG_CHANGES) == 0) {
+                return;
+            }
+            applyConfiguration(newConfig);
+        }
+        mMemoryCache.evictAll();
+    }
+
+    /**
+     * 丢弃给定包中所有组件的图标，包括其它配置的磁盘目录，用于包变化广播。
+     * versionCode不变的更新也可能改变图标。
+     */
+    @WorkerThread
+    void invalidatePackage(@NonNull String packageName) {
+        String keyPrefix = packageName + '/';
+        for (String key : mMemoryCache.snapshot().keySet()) {
+            if (key.startsWith(keyPrefix)) {
+                mMemoryCache.remove(key);
+            }
+        }
+        File[] configDirs = mBaseDir.listFiles(File::isDirectory);
+        if (configDirs == null) {
+            return;
+        }
+        String filePrefix = packageName + FILE_COMPONENT_SEPARATOR;
+        for (File dir : configDirs) {
+            deleteFiles(dir, filePrefix);
+        }
+    }
+
+    /**
+     * 只查找内存层，不访问磁盘，因此可以在主线程上调用。不计入命中计数。
+     *
+     * @param key 由 {@link #getKey} 预先计算的键，避免在绑定视图时分配内存
+     */
+    @Nullable
+    Bitmap peekIcon(@NonNull String key) {
+        return mMemoryCache.get(key);
+    }
+
+    int getMemoryHits() {
+        return mMemoryHits.get();
+    }
+
+    int getDiskHits() {
+        return mDiskHits.get();
+    }
+
+    int getMisses() {
+        return mMisses.get();
+    }
+
+    int getEvictions() {
+        return mEvictions.get();
+    }
+
+    void dump(@NonNull String prefix, @NonNull PrintWriter writer) {
+        String diskDir;
+        synchronized (this) {
+            diskDir = mDiskDir.getName();
+        }
+        writer.println(prefix + TAG + ": diskDir=" + diskDir + ", memoryBytes="
+                + mMemoryCache.size() + "/" + mMemoryCache.maxSize()
+                + ", memoryHits=" + getMemoryHits()
+                + ", diskHits=" + getDiskHits() + ", misses=" + getMisses()
+                + ", evictions=" + getEvictions());
+    }
+
+    @Nullable
+    private Drawable toDrawable(@Nullable Bitmap bitmap) {
+        return bitmap != null ? new BitmapDrawable(mResources, bitmap) : null;
+    }
+
+    private void applyConfiguration(Configuration configuration) {
+        mConfiguration = new Configuration(configuration);
+        mIconSize = mResources.getDimensionPixelSize(R.dimen.app_grid_touch_target_size);
+        mDiskDir = new File(mBaseDir, getConfigDirName(configuration));
+        mGeneration++;
+    }
+
+    /** 按旧配置得到的位图不放入内存层。 */
+    private void putInMemory(int generation, String key, Bitmap bitmap) {
+        synchronized (this) {
+            if (generation == mGeneration) {
+                mMemoryCache.put(key, bitmap);
+            }
+        }
+    }
+
+    private static Bitmap rasterize(Drawable drawable, int iconSize) {
+        Bitmap bitmap = Bitmap.createBitmap(iconSize, iconSize, Bitmap.Config.ARGB_8888);
+        Canvas canvas = new Canvas(bitmap);
+        drawable.setBounds(0, 0, iconSize, iconSize);
+        drawable.draw(canvas);
+        return bitmap;
+    }
+
+    private static void writeToDisk(File diskDir, ComponentName componentName, long versionCode,
+            Bitmap bitmap) {
+        if (!diskDir.isDirectory() && !diskDir.mkdirs()) {
+            Log.w(TAG, "Unable to create icon cache directory " + diskDir);
+            return;
+        }
+        // 同一组件的旧版本图标不会再被命中，写入新版本时一并清理
+        deleteFiles(diskDir, getFilePrefix(componentName));
+
+        AtomicFile file = new AtomicFile(getFile(diskDir, componentName, versionCode));
+        FileOutputStream fos = null;
+        try {
+            fos = file.startWrite();
+            bitmap.compress(Bitmap.CompressFormat.PNG, /* quality= */ 100, fos);
+            file.finishWrite(fos);
+        } catch (IOException e) {
+            Log.w(TAG, "Failed to write icon for " + componentName, e);
+            file.failWrite(fos);
+        }
+    }
+
+    private static void deleteFiles(File dir, String prefix) {
+        File[] files = dir.listFiles((parent, name) -> name.startsWith(prefix));
+        if (files != null) {
+            for (File file : files) {
+                file.delete();
+            }
+        }
+    }
+
+    private static File getFile(File diskDir, ComponentName componentName, long versionCode) {
+        return new File(diskDir, getFilePrefix(componentName) + versionCode + FILE_SUFFIX);
+    }
+
+    private static String getFilePrefix(ComponentName componentName) {
+        return componentName.flattenToString().replace('/', FILE_COMPONENT_SEPARATOR) + '@';
+    }
+
+    /** 例如{@code 160dpi-night}。 */
+    private static String getConfigDirName(Configuration configuration) {
+        boolean night = (configuration.uiMode & Configuration.UI_MODE_NIGHT_MASK)
+                == Configuration.UI_MODE_NIGHT_YES;
+        return configuration.densityDpi + "dpi-" + (night ? "night" : "notnight");
+    }
+
+    /** 返回给定组件和版本在内存层中的键。 */
+    static String getKey(ComponentName componentName, long versionCode) {
+        return componentName.flattenToString() + '@' + versionCode;
+    }
+}
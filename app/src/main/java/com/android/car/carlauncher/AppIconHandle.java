@@ -0,0 +1,107 @@
+/*
+ * Copyright (C) 2022 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.car.carlauncher;
+
+import android.content.ComponentName;
+import android.graphics.Bitmap;
+import android.graphics.drawable.Drawable;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import androidx.annotation.WorkerThread;
+
+import java.util.function.Supplier;
+
+/**
+ * 对应用图标的延迟引用。创建时不加载任何内容，只有视图真正需要显示图标时
+ * 才通过 {@link #load()} 在后台线程上解码。
+ *
+ * <p>有 {@link AppIconCache} 时图标由缓存持有，句柄本身不保存位图；
+ * 没有缓存时第一次加载的结果保存在句柄中。
+ */
+final class AppIconHandle {
+    @Nullable
+    private final AppIconCache mIconCache;
+    private final ComponentName mComponentName;
+    private final long mVersionCode;
+    @Nullable
+    private final Supplier<Drawable> mLoader;
+    // 预先计算的内存层键，使主线程上的查找不分配内存
+    @Nullable
+    private final String mCacheKey;
+
+    @Nullable
+    private volatile Drawable mIcon;
+
+    /**
+     * @param iconCache   图标缓存，可能为{@code null}
+     * @param versionCode 组件所在包的versionCode，用作缓存键
+     * @param loader      从PackageManager加载原始图标；为{@code null}时只使用缓存，
+     *                    例如从快照恢复的条目
+     */
+    AppIconHandle(@Nullable AppIconCache iconCache, @NonNull ComponentName componentName,
+            long versionCode, @Nullable Supplier<Drawable> loader) {
+        mIconCache = iconCache;
+        mComponentName = componentName;
+        mVersionCode = versionCode;
+        mLoader = loader;
+        mCacheKey = iconCache != null ? AppIconCache.getKey(componentName, versionCode) : null;
+    }
+
+    /**
+     * 返回图标缓存内存层中的位图。不做任何IO也不分配内存，可以在绑定视图时调用。
+     * 没有图标缓存时总是返回{@code null}。
+     */
+    @Nullable
+    Bitmap peekBitmap() {
+        return mIconCache != null ? mIconCache.peekIcon(mCacheKey) : null;
+    }
+
+    /**
+     * 返回没有图标缓存时已经加载并保存在句柄中的图标。有图标缓存时总是返回{@code null}，
+     * 应使用 {@link #peekBitmap()}。
+     */
+    @Nullable
+    Drawable peekDrawable() {
+        return mIcon;
+    }
+
+    /** 加载图标，必要时访问磁盘或PackageManager。 */
+    @WorkerThread
+    @Nullable
+    Drawable load() {
+        if (mIconCache != null) {
+            return mIconCache.getIconDrawable(mComponentName, mVersionCode, mLoader);
+        }
+        Drawable icon = mIcon;
+        if (icon == null && mLoader != null) {
+            icon = mLoader.get();
+            mIcon = icon;
+        }
+        return icon;
+    }
+
+    /** 如果此句柄只能从缓存取得图标（例如从快照恢复的条目），则返回{@code true}。 */
+    boolean isCacheOnly() {
+        return mLoader == null;
+    }
+
+    /** 返回图标所属包的versionCode，图标内容只会随它变化。 */
+    long getVersionCode() {
+        return mVersionCode;
+    }
+}
@@ -17,7 +17,12 @@
 package com.android.car.carlauncher;
 
 import android.annotation.Nullable;
+import android.content.ComponentName;
 import android.content.Context;
+import android.content.res.Resources;
+import android.graphics.Bitmap;
+import android.graphics.drawable.Drawable;
+import android.os.Process;
 import android.view.View;
 import android.widget.ImageView;
 import android.widget.TextView;
@@ -25,22 +30,79 @@ import android.widget.Toast;
 
 import androidx.recyclerview.widget.RecyclerView;
 
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
 /**
  * 包含应用图标和名称的应用项目视图持有者
  * 就是展示APP条目信息的ViewHolder哦
+ *
+ * <p>稳定滚动时 {@link #bind} 不分配内存：资源值由适配器缓存一份，点击监听器在所有应用项之间共享，
+ * 点击时才从视图持有者取得当前绑定的应用，驾驶提示文字也只在点击时格式化。
  */
 public class AppItemViewHolder extends RecyclerView.ViewHolder {
-    private final Context mContext;
+    private static final int ICON_DECODE_THREADS = 2;
+
+    // 所有应用项共享的图标解码线程池
+    private static final ExecutorService ICON_EXECUTOR = Executors.newFixedThreadPool(
+            ICON_DECODE_THREADS, runnable -> new Thread(() -> {
+                Process.setThreadPriority(Process.THREAD_PRIORITY_BACKGROUND);
+                runnable.run();
+            }, "AppIconDecoder"));
+
+    // 所有应用项共享的监听器，通过视图的tag找到对应的视图持有者
+    private static final View.OnClickListener CLICK_LISTENER =
+            v -> ((AppItemViewHolder) v.getTag()).onClick();
+    private static final View.OnLongClickListener LONG_CLICK_LISTENER =
+            v -> ((AppItemViewHolder) v.getTag()).onLongClick();
+
+    /** 绑定时用到的资源值，每个适配器读取一次，由其所有应用项共享。 */
+    static final class BindingResources {
+        final float mIconOpacity;
+        final float mIconOpacityUnavailable;
+
+        BindingResources(Resources resources) {
+            mIconOpacity = resources.getFloat(R.dimen.app_icon_opacity);
+            mIconOpacityUnavailable = resources.getFloat(R.dimen.app_icon_opacity_unavailable);
+        }
+    }
+
+    // 点击时用于启动应用和显示提示的上下文，由适配器在绑定时设置。仅在主线程访问。
+    private Context mContext;
+    private final BindingResources mBindingResources;
     private View mAppItem;
     private ImageView mAppIconView;
     private TextView mAppNameView;
 
-    AppItemViewHolder(View view, Context context) {
+    @Nullable
+    private AppMetaData mApp;
+    private boolean mIsLaunchable;
+    // 当前绑定的组件，用于丢弃已经过期的图标解码结果。仅在主线程访问。
+    @Nullable
+    private ComponentName mBoundComponent;
+    @Nullable
+    private Future<?> mPendingIconLoad;
+
+    AppItemViewHolder(View view, Context context, BindingResources bindingResources) {
         super(view);
         mContext = context;
+        mBindingResources = bindingResources;
         mAppItem = view.findViewById(R.id.app_item);
         mAppIconView = mAppItem.findViewById(R.id.app_icon);
         mAppNameView = mAppItem.findViewById(R.id.app_name);
+        mAppItem.setTag(this);
+        mAppItem.setOnClickListener(CLICK_LISTENER);
+        // Note setOnLongClickListener implicitly sets view to be long clickable
+        mAppItem.setOnLongClickListener(LONG_CLICK_LISTENER);
+        mAppItem.setLongClickable(false);
+    }
+
+    /**
+     * 设置点击时使用的上下文。视图持有者可能在共享的池中跨活动复用，因此不在创建时固定。
+     */
+    void setHostContext(Context context) {
+        mContext = context;
     }
 
     /**
@@ -50,6 +112,9 @@ public class AppItemViewHolder extends RecyclerView.ViewHolder {
      */
     public void bind(@Nullable AppMetaData app, boolean isDistractionOptimizationRequired) {
         // Empty out the view
+        cancelPendingIconLoad();
+        mApp = null;
+        mBoundComponent = null;
         mAppIconView.setImageDrawable(null);
         mAppNameView.setText(null);
 
@@ -57,29 +122,92 @@ public class AppItemViewHolder extends RecyclerView.ViewHolder {
             return;
         }
 
+        mApp = app;
+        mBoundComponent = app.getComponentName();
         mAppNameView.setText(app.getDisplayName());
-        mAppIconView.setImageDrawable(app.getIcon());
-        boolean isLaunchable =
-                !isDistractionOptimizationRequired || app.getIsDistractionOptimized();
-        mAppIconView.setAlpha(mContext.getResources().getFloat(
-                isLaunchable ? R.dimen.app_icon_opacity : R.dimen.app_icon_opacity_unavailable));
-
-        if (isLaunchable) {
-            mAppItem.setOnClickListener(v -> app.getLaunchCallback().accept(mContext));
-            boolean hasLongClickCallback = (app.getAlternateLaunchCallback() != null);
-            mAppItem.setLongClickable(hasLongClickCallback);
-            if (hasLongClickCallback) {
-                // Note setOnLongClickListener implicitly sets view to be long clickable
-                mAppItem.setOnLongClickListener(v -> {
-                    app.getAlternateLaunchCallback().accept(mContext);
-                    return true;
-                });
-            }
+        bindIcon(app.getIcon());
+        bindLaunchability(app, isDistractionOptimizationRequired);
+    }
+
+    /**
+     * 只更新与驾驶限制相关的部分（图标透明度和点击行为），用于UX限制变化时的局部绑定。
+     */
+    void updateDistractionOptimizationRequired(boolean isDistractionOptimizationRequired) {
+        if (mApp != null) {
+            bindLaunchability(mApp, isDistractionOptimizationRequired);
+        }
+    }
+
+    private void bindLaunchability(AppMetaData app, boolean isDistractionOptimizationRequired) {
+        mIsLaunchable = !isDistractionOptimizationRequired || app.getIsDistractionOptimized();
+        mAppIconView.setAlpha(mIsLaunchable
+                ? mBindingResources.mIconOpacity
+                : mBindingResources.mIconOpacityUnavailable);
+        // 驾驶中不允许通过长按打开替代界面
+        mAppItem.setLongClickable(mIsLaunchable && app.getAlternateLaunchCallback() != null);
+    }
+
+    private void onClick() {
+        AppMetaData app = mApp;
+        if (app == null) {
+            return;
+        }
+        if (mIsLaunchable) {
+            app.getLaunchCallback().accept(mContext);
         } else {
             String warningText = mContext.getResources()
                     .getString(R.string.driving_toast_text, app.getDisplayName());
-            mAppItem.setOnClickListener(
-                    v -> Toast.makeText(mContext, warningText, Toast.LENGTH_LONG).show());
+            Toast.makeText(mContext, warningText, Toast.LENGTH_LONG).show();
+        }
+    }
+
+    private boolean onLongClick() {
+        AppMetaData app = mApp;
+        if (app == null || !mIsLaunchable || app.getAlternateLaunchCallback() == null) {
+            return false;
+        }
+        app.getAlternateLaunchCallback().accept(mContext);
+        return true;
+    }
+
+    /**
+     * 已经在内存中的图标直接显示；否则先显示占位图，在后台解码，
+     * 解码完成时只有此视图持有者仍然绑定同一个组件才会应用结果。
+     */
+    private void bindIcon(AppIconHandle icon) {
+        Bitmap bitmap = icon.peekBitmap();
+        if (bitmap != null) {
+            // ImageView会复用自己的BitmapDrawable，不会为每次绑定分配新的Drawable
+            mAppIconView.setImageBitmap(bitmap);
+            return;
+        }
+        Drawable drawable = icon.peekDrawable();
+        if (drawable != null) {
+            mAppIconView.setImageDrawable(drawable);
+            return;
+        }
+
+        mAppIconView.setImageResource(R.drawable.app_icon_placeholder);
+        ComponentName componentName = mBoundComponent;
+        mPendingIconLoad = ICON_EXECUTOR.submit(() -> {
+            Drawable loaded = icon.load();
+            itemView.getContext().getMainExecutor().execute(() -> {
+                if (!componentName.equals(mBoundComponent)) {
+                    return;
+                }
+                mPendingIconLoad = null;
+                if (loaded != null) {
+                    mAppIconView.setImageDrawable(loaded);
+                }
+            });
+        });
+    }
+
+    private void cancelPendingIconLoad() {
+        if (mPendingIconLoad != null) {
+            // 尚未开始的解码直接取消；已经开始的解码结果会在应用前被丢弃
+            mPendingIconLoad.cancel(/* mayInterruptIfRunning= */ false);
+            mPendingIconLoad = null;
         }
     }
 }
@@ -0,0 +1,90 @@
+/*
+ * Copyright (C) 2022 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.car.carlauncher;
+
+import androidx.annotation.NonNull;
+
+import java.text.CollationKey;
+import java.text.Collator;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * 按当前语言区域为应用名称生成 {@link CollationKey}，使排序时只需要比较预先计算好的键，
+ * 并且得到符合该语言习惯的顺序（例如zh-CN按拼音排序）。
+ *
+ * <p>键按语言区域缓存，语言区域变化时整体失效。此类是线程安全的：
+ * 加载器在后台线程上预先计算键，适配器在主线程上排序。
+ */
+final class AppLabelCollator {
+    private static final AppLabelCollator INSTANCE = new AppLabelCollator(Locale.getDefault());
+
+    private Locale mLocale;
+    private Collator mCollator;
+    private final Map<String, CollationKey> mKeys = new HashMap<>();
+    // 每次语言区域变化时递增，AppMetaData据此判断自己缓存的键是否过期
+    private int mGeneration;
+
+    private AppLabelCollator(Locale locale) {
+        mLocale = locale;
+        mCollator = createCollator(locale);
+    }
+
+    static AppLabelCollator getInstance() {
+        return INSTANCE;
+    }
+
+    /**
+     * 切换到给定的语言区域。
+     *
+     * @return 如果语言区域发生了变化、之前的键已失效，则返回{@code true}
+     */
+    synchronized boolean setLocale(@NonNull Locale locale) {
+        if (locale.equals(mLocale)) {
+            return false;
+        }
+        mLocale = locale;
+        mCollator = createCollator(locale);
+        mKeys.clear();
+        mGeneration++;
+        return true;
+    }
+
+    /** 返回当前语言区域的代数。 */
+    synchronized int getGeneration() {
+        return mGeneration;
+    }
+
+    /** 返回给定名称在当前语言区域下的排序键。 */
+    @NonNull
+    synchronized CollationKey getCollationKey(@NonNull String label) {
+        CollationKey key = mKeys.get(label);
+        if (key == null) {
+            key = mCollator.getCollationKey(label);
+            mKeys.put(label, key);
+        }
+        return key;
+    }
+
+    private static Collator createCollator(Locale locale) {
+        Collator collator = Collator.getInstance(locale);
+        // 忽略大小写，但区分重音，与之前的compareToIgnoreCase行为保持接近
+        collator.setStrength(Collator.SECONDARY);
+        return collator;
+    }
+}
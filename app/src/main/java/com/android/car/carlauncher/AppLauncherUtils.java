@@ -30,6 +30,7 @@ import android.content.Context;
 import android.content.Intent;
 import android.content.pm.LauncherActivityInfo;
 import android.content.pm.LauncherApps;
+import android.content.pm.PackageInfo;
 import android.content.pm.PackageManager;
 import android.content.pm.ResolveInfo;
 import android.os.Process;
@@ -45,6 +46,7 @@ import java.util.ArrayList;
 import java.util.Collections;
 import java.util.Comparator;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
@@ -64,12 +66,26 @@ class AppLauncherUtils {
     private AppLauncherUtils() {
     }
 
+    /**
+     * 由承载应用网格的活动实现，决定点击媒体服务时是导航到media center，还是只选择媒体源并关闭。
+     * 媒体服务的启动回调在点击时才读取此设置，因此同一份目录可以服务所有模式。
+     */
+    interface MediaCenterPolicy {
+        boolean shouldOpenMediaCenter();
+    }
+
+    /** 把媒体源切换到给定的媒体服务，通常转发给 {@link CarMediaManager}。 */
+    interface MediaSourceSelector {
+        void selectMediaSource(@NonNull ComponentName componentName)
+                throws CarNotConnectedException;
+    }
+
     /**
      * 排序列表的｛@link AppMetaData｝的比较器
-     * 按“displayName”属性升序排列。
+     * 按“displayName”属性在当前语言区域下的排序键升序排列，见 {@link AppLabelCollator}。
      */
     static final Comparator<AppMetaData> ALPHABETICAL_COMPARATOR = Comparator
-            .comparing(AppMetaData::getDisplayName, String::compareToIgnoreCase);
+            .comparing(AppMetaData::getCollationKey);
 
     /**
      * 在给定应用程序的AppMetaData的情况下启动应用程序的Helper方法。
@@ -84,7 +100,7 @@ class AppLauncherUtils {
         context.startActivity(intent, options.toBundle());
     }
 
-    /** 捆绑应用程序和服务信息。 */
+    /** 捆绑应用程序和服务信息。创建后不可修改，可以安全地在线程之间传递。 */
     static class LauncherAppsInfo {
         /*
          * 所有汽车发射器组件的地图（包括发射器活动和媒体服务）
@@ -92,13 +108,26 @@ class AppLauncherUtils {
          */
         private final Map<ComponentName, AppMetaData> mLaunchables;
 
-        /** 由ComponentName键入的所有媒体服务的映射。 */
-        private final Map<ComponentName, ResolveInfo> mMediaServices;
+        /** 所有媒体服务的ComponentName集合。 */
+        private final Set<ComponentName> mMediaServices;
+
+        /**
+         * 包名到该包第一个媒体服务的索引，
+         * 与 {@link AppLauncherUtils#getMediaSource(PackageManager, String)} 的结果一致。
+         */
+        private final Map<String, ComponentName> mMediaSources;
+
+        /** 包名到该包第一个启动器活动的索引，包括被隐藏的应用。 */
+        private final Map<String, ComponentName> mLauncherActivities;
 
         LauncherAppsInfo(@NonNull Map<ComponentName, AppMetaData> launchablesMap,
-                @NonNull Map<ComponentName, ResolveInfo> mediaServices) {
-            mLaunchables = launchablesMap;
-            mMediaServices = mediaServices;
+                @NonNull Set<ComponentName> mediaServices,
+                @NonNull Map<String, ComponentName> mediaSources,
+                @NonNull Map<String, ComponentName> launcherActivities) {
+            mLaunchables = Collections.unmodifiableMap(launchablesMap);
+            mMediaServices = Collections.unmodifiableSet(mediaServices);
+            mMediaSources = Collections.unmodifiableMap(mediaSources);
+            mLauncherActivities = Collections.unmodifiableMap(launcherActivities);
         }
 
         /** 如果所有映射都为空，则返回true。 */
@@ -110,7 +139,7 @@ class AppLauncherUtils {
          * 返回给定的componentName是否为媒体服务。
          */
         boolean isMediaService(ComponentName componentName) {
-            return mMediaServices.containsKey(componentName);
+            return mMediaServices.contains(componentName);
         }
 
         /** 返回 {@link AppMetaData} 对于给定的componentName */
@@ -119,6 +148,50 @@ class AppLauncherUtils {
             return mLaunchables.get(componentName);
         }
 
+        /** 返回由ComponentName键入的所有可启动组件的只读映射。 */
+        @NonNull
+        Map<ComponentName, AppMetaData> getLaunchables() {
+            return mLaunchables;
+        }
+
+        /** 返回所有媒体服务的只读集合。 */
+        @NonNull
+        Set<ComponentName> getMediaServices() {
+            return mMediaServices;
+        }
+
+        /**
+         * 返回给定包中的媒体源，不需要访问PackageManager。
+         *
+         * @return 包中的第一个媒体服务；包中没有媒体服务时为{@code null}
+         */
+        @Nullable
+        ComponentName getMediaSource(@NonNull String packageName) {
+            return mMediaSources.get(packageName);
+        }
+
+        /** 返回包名到媒体源的只读索引。 */
+        @NonNull
+        Map<String, ComponentName> getMediaSources() {
+            return mMediaSources;
+        }
+
+        /**
+         * 返回给定包中可以从启动器启动的活动，不需要访问PackageManager。
+         *
+         * @return 包中的第一个启动器活动；包不支持从启动器启动时为{@code null}
+         */
+        @Nullable
+        ComponentName getLauncherActivity(@NonNull String packageName) {
+            return mLauncherActivities.get(packageName);
+        }
+
+        /** 返回包名到启动器活动的只读索引。 */
+        @NonNull
+        Map<String, ComponentName> getLauncherActivities() {
+            return mLauncherActivities;
+        }
+
         /** 返回所有可启动组件的新列表 {@link AppMetaData}. */
         @NonNull
         List<AppMetaData> getLaunchableComponentsList() {
@@ -127,7 +200,8 @@ class AppLauncherUtils {
     }
 
     private final static LauncherAppsInfo EMPTY_APPS_INFO = new LauncherAppsInfo(
-            Collections.emptyMap(), Collections.emptyMap());
+            Collections.emptyMap(), Collections.emptySet(), Collections.emptyMap(),
+            Collections.emptyMap());
 
     /*
      * 获取给定包中的媒体源。如果包中有多个源，
@@ -158,7 +232,6 @@ class AppLauncherUtils {
      * @param blackList             要隐藏的应用程序（包名称）列表（可能为空）
      * @param customMediaComponents 不应在Launcher中显示的媒体组件（组件名称）列表（可能为空），因为将显示其应用程序的Launcher活动
      * @param appTypes              要显示的应用程序类型（例如：全部或仅媒体源）
-     * @param openMediaCenter       当用户选择媒体源时，启动器是否应导航到media center。
      * @param launcherApps          {@link LauncherApps}系统服务
      * @param carPackageManager     {@link CarPackageManager}系统服务
      * @param packageManager        {@link PackageManager}系统服务
@@ -169,29 +242,88 @@ class AppLauncherUtils {
             @NonNull Set<String> appsToHide,
             @NonNull Set<String> customMediaComponents,
             @AppTypes int appTypes,
-            boolean openMediaCenter,
             LauncherApps launcherApps,
             CarPackageManager carPackageManager,
             PackageManager packageManager,
             CarMediaManager carMediaManager) {
+        return getLauncherApps(appsToHide, customMediaComponents, appTypes, launcherApps,
+                distractionOptimizationLookup(carPackageManager), packageManager,
+                mediaSourceSelector(carMediaManager), /* doCache= */ null,
+                /* iconCache= */ null, /* targetPackage= */ null);
+    }
 
-        if (launcherApps == null || carPackageManager == null || packageManager == null
-                || carMediaManager == null) {
+    /** 返回转发给给定管理器的查询，管理器为{@code null}时返回{@code null}。 */
+    @Nullable
+    static DistractionOptimizationCache.Lookup distractionOptimizationLookup(
+            @Nullable CarPackageManager carPackageManager) {
+        return carPackageManager == null ? null
+                : componentName -> carPackageManager.isActivityDistractionOptimized(
+                        componentName.getPackageName(), componentName.getClassName());
+    }
+
+    /** 返回转发给给定管理器的选择器，管理器为{@code null}时返回{@code null}。 */
+    @Nullable
+    static MediaSourceSelector mediaSourceSelector(@Nullable CarMediaManager carMediaManager) {
+        return carMediaManager == null ? null
+                : componentName -> carMediaManager.setMediaSource(componentName,
+                        CarMediaManager.MEDIA_SOURCE_MODE_BROWSE);
+    }
+
+    /**
+     * 与 {@link #getLauncherApps(Set, Set, int, LauncherApps, CarPackageManager,
+     * PackageManager, CarMediaManager)} 相同，但可以只解析单个包中的启动器活动和媒体服务。
+     * 汽车服务通过 {@link #distractionOptimizationLookup} 和 {@link #mediaSourceSelector} 传入。
+     *
+     * @param doCache       分心优化结果的缓存；为{@code null}时每个活动都查询CarPackageManager
+     * @param iconCache     图标缓存；为{@code null}时每个组件都从PackageManager加载图标
+     * @param targetPackage 只解析此包中的组件；为{@code null}时解析所有包
+     */
+    @NonNull
+    static LauncherAppsInfo getLauncherApps(
+            @NonNull Set<String> appsToHide,
+            @NonNull Set<String> customMediaComponents,
+            @AppTypes int appTypes,
+            LauncherApps launcherApps,
+            DistractionOptimizationCache.Lookup doLookup,
+            PackageManager packageManager,
+            MediaSourceSelector mediaSourceSelector,
+            @Nullable DistractionOptimizationCache doCache,
+            @Nullable AppIconCache iconCache,
+            @Nullable String targetPackage) {
+
+        if (launcherApps == null || doLookup == null || packageManager == null
+                || mediaSourceSelector == null) {
             return EMPTY_APPS_INFO;
         }
 
         // 检索所有符合给定intent的服务
+        Intent mediaServiceIntent = new Intent(MediaBrowserService.SERVICE_INTERFACE);
+        mediaServiceIntent.setPackage(targetPackage);
         List<ResolveInfo> mediaServices = packageManager.queryIntentServices(
-                new Intent(MediaBrowserService.SERVICE_INTERFACE),
-                PackageManager.GET_RESOLVED_FILTER);
+                mediaServiceIntent, PackageManager.GET_RESOLVED_FILTER);
 
         // 检索指定packageName的Activity的列表
         List<LauncherActivityInfo> availableActivities =
-                launcherApps.getActivityList(null, Process.myUserHandle());
+                launcherApps.getActivityList(targetPackage, Process.myUserHandle());
 
         Map<ComponentName, AppMetaData> launchablesMap = new HashMap<>(
                 mediaServices.size() + availableActivities.size());
-        Map<ComponentName, ResolveInfo> mediaServicesMap = new HashMap<>(mediaServices.size());
+        Set<ComponentName> mediaServicesSet = new HashSet<>(mediaServices.size());
+        Map<String, PackageInfo> packageInfos = getPackageInfos(packageManager, targetPackage);
+
+        // 建立包名索引，使最近使用的应用等按包查询的场景不再需要额外的binder调用
+        Map<String, ComponentName> mediaSources = new HashMap<>();
+        for (ResolveInfo info : mediaServices) {
+            if (!TextUtils.isEmpty(info.serviceInfo.name)) {
+                mediaSources.putIfAbsent(info.serviceInfo.packageName,
+                        new ComponentName(info.serviceInfo.packageName, info.serviceInfo.name));
+            }
+        }
+        Map<String, ComponentName> launcherActivities = new HashMap<>();
+        for (LauncherActivityInfo info : availableActivities) {
+            ComponentName componentName = info.getComponentName();
+            launcherActivities.putIfAbsent(componentName.getPackageName(), componentName);
+        }
 
         // Process media services
         if ((appTypes & APP_TYPE_MEDIA_SERVICES) != 0) {
@@ -199,33 +331,18 @@ class AppLauncherUtils {
                 String packageName = info.serviceInfo.packageName;
                 String className = info.serviceInfo.name;
                 ComponentName componentName = new ComponentName(packageName, className);
-                mediaServicesMap.put(componentName, info);
+                mediaServicesSet.add(componentName);
                 if (shouldAddToLaunchables(componentName, appsToHide, customMediaComponents,
                         appTypes, APP_TYPE_MEDIA_SERVICES)) {
-                    final boolean isDistractionOptimized = true;
-
-                    Intent intent = new Intent(Car.CAR_INTENT_ACTION_MEDIA_TEMPLATE);
-                    intent.putExtra(Car.CAR_EXTRA_MEDIA_COMPONENT, componentName.flattenToString());
-
-                    AppMetaData appMetaData = new AppMetaData(
-                        info.serviceInfo.loadLabel(packageManager),
-                        componentName,
-                        info.serviceInfo.loadIcon(packageManager),
-                        isDistractionOptimized,
-                        context -> {
-                            if (openMediaCenter) {
-                                AppLauncherUtils.launchApp(context, intent);
-                            } else {
-                                selectMediaSourceAndFinish(context, componentName, carMediaManager);
-                            }
-                        },
-                        context -> {
-                            // 返回系统中所有MainActivity带有Intent.CATEGORY_INFO 和 Intent.CATEGORY_LAUNCHER的intent
-                            Intent packageLaunchIntent =
-                                    packageManager.getLaunchIntentForPackage(packageName);
-                            AppLauncherUtils.launchApp(context,
-                                    packageLaunchIntent != null ? packageLaunchIntent : intent);
-                        });
+                    long versionCode = getVersionCode(packageInfos, packageName);
+                    AppMetaData appMetaData = createMediaServiceMetaData(
+                            info.serviceInfo.loadLabel(packageManager),
+                            componentName,
+                            versionCode,
+                            new AppIconHandle(iconCache, componentName, versionCode,
+                                    () -> info.serviceInfo.loadIcon(packageManager)),
+                            packageManager,
+                            mediaSourceSelector);
                     launchablesMap.put(componentName, appMetaData);
                 }
             }
@@ -238,31 +355,149 @@ class AppLauncherUtils {
                 String packageName = componentName.getPackageName();
                 if (shouldAddToLaunchables(componentName, appsToHide, customMediaComponents,
                         appTypes, APP_TYPE_LAUNCHABLES)) {
-                    boolean isDistractionOptimized =
-                        isActivityDistractionOptimized(carPackageManager, packageName,
-                            info.getName());
-
-                    Intent intent = new Intent(Intent.ACTION_MAIN)
-                        .setComponent(componentName)
-                        .addCategory(Intent.CATEGORY_LAUNCHER)
-                        .setFlags(Intent.FLAG_ACTIVITY_NEW_TASK);
+                    boolean isDistractionOptimized = doCache != null
+                            ? doCache.isActivityDistractionOptimized(doLookup, componentName,
+                                    packageInfos.get(packageName))
+                            : isActivityDistractionOptimized(doLookup, componentName);
 
                     // 获取app的name，和 app的图标
-                    AppMetaData appMetaData = new AppMetaData(
-                        info.getLabel(),
-                        componentName,
-                        info.getBadgedIcon(0),
-                        isDistractionOptimized,
-
-                        // 【Derry提醒你，下面的分析，就是这个launchApp方法】
-                        context -> AppLauncherUtils.launchApp(context, intent),
-                        null);
+                    long versionCode = getVersionCode(packageInfos, packageName);
+                    AppMetaData appMetaData = createLauncherActivityMetaData(
+                            info.getLabel(),
+                            componentName,
+                            versionCode,
+                            new AppIconHandle(iconCache, componentName, versionCode,
+                                    () -> info.getBadgedIcon(0)),
+                            isDistractionOptimized);
                     launchablesMap.put(componentName, appMetaData);
                 }
             }
         }
 
-        return new LauncherAppsInfo(launchablesMap, mediaServicesMap);
+        return new LauncherAppsInfo(launchablesMap, mediaServicesSet, mediaSources,
+                launcherActivities);
+    }
+
+    /**
+     * 为媒体服务创建 {@link AppMetaData}。媒体服务总是被视为分心优化的。
+     * 点击时是否导航到media center由启动时的上下文决定，见 {@link MediaCenterPolicy}。
+     *
+     * @param mediaSourceSelector 可能为{@code null}，例如从快照恢复时汽车服务尚未连接
+     */
+    @NonNull
+    static AppMetaData createMediaServiceMetaData(
+            CharSequence label,
+            @NonNull ComponentName componentName,
+            long versionCode,
+            @NonNull AppIconHandle icon,
+            @NonNull PackageManager packageManager,
+            @Nullable MediaSourceSelector mediaSourceSelector) {
+        String packageName = componentName.getPackageName();
+        Intent intent = new Intent(Car.CAR_INTENT_ACTION_MEDIA_TEMPLATE);
+        intent.putExtra(Car.CAR_EXTRA_MEDIA_COMPONENT, componentName.flattenToString());
+
+        return new AppMetaData(
+                label,
+                componentName,
+                versionCode,
+                icon,
+                /* isDistractionOptimized= */ true,
+                context -> {
+                    if (shouldOpenMediaCenter(context)) {
+                        AppLauncherUtils.launchApp(context, intent);
+                    } else {
+                        selectMediaSourceAndFinish(context, componentName, mediaSourceSelector);
+                    }
+                },
+                context -> {
+                    // 返回系统中所有MainActivity带有Intent.CATEGORY_INFO 和 Intent.CATEGORY_LAUNCHER的intent
+                    Intent packageLaunchIntent =
+                            packageManager.getLaunchIntentForPackage(packageName);
+                    AppLauncherUtils.launchApp(context,
+                            packageLaunchIntent != null ? packageLaunchIntent : intent);
+                });
+    }
+
+    /** 为启动器活动创建 {@link AppMetaData}。 */
+    @NonNull
+    static AppMetaData createLauncherActivityMetaData(
+            CharSequence label,
+            @NonNull ComponentName componentName,
+            long versionCode,
+            @NonNull AppIconHandle icon,
+            boolean isDistractionOptimized) {
+        Intent intent = new Intent(Intent.ACTION_MAIN)
+                .setComponent(componentName)
+                .addCategory(Intent.CATEGORY_LAUNCHER)
+                .setFlags(Intent.FLAG_ACTIVITY_NEW_TASK);
+
+        return new AppMetaData(
+                label,
+                componentName,
+                versionCode,
+                icon,
+                isDistractionOptimized,
+                // 【Derry提醒你，下面的分析，就是这个launchApp方法】
+                context -> AppLauncherUtils.launchApp(context, intent),
+                null);
+    }
+
+    /**
+     * 从包含所有启动器活动和媒体服务的目录中筛选出应显示的组件，
+     * 规则与 {@link #getLauncherApps} 按相同参数扫描时一致。
+     *
+     * @return 新的未排序列表
+     */
+    @NonNull
+    static List<AppMetaData> filterLaunchables(@NonNull LauncherAppsInfo appsInfo,
+            @NonNull Set<String> appsToHide,
+            @NonNull Set<String> customMediaComponents,
+            @AppTypes int appTypes) {
+        List<AppMetaData> apps = new ArrayList<>(appsInfo.getLaunchables().size());
+        for (AppMetaData app : appsInfo.getLaunchables().values()) {
+            ComponentName componentName = app.getComponentName();
+            int componentAppType = appsInfo.isMediaService(componentName)
+                    ? APP_TYPE_MEDIA_SERVICES
+                    : APP_TYPE_LAUNCHABLES;
+            if ((appTypes & componentAppType) != 0 && shouldAddToLaunchables(componentName,
+                    appsToHide, customMediaComponents, appTypes, componentAppType)) {
+                apps.add(app);
+            }
+        }
+        return apps;
+    }
+
+    /** 没有设置 {@link MediaCenterPolicy} 的上下文默认导航到media center。 */
+    private static boolean shouldOpenMediaCenter(Context context) {
+        return !(context instanceof MediaCenterPolicy)
+                || ((MediaCenterPolicy) context).shouldOpenMediaCenter();
+    }
+
+    /**
+     * 获取包信息。完整扫描时用一次调用取回所有包，单包解析时只查询该包。
+     */
+    private static Map<String, PackageInfo> getPackageInfos(
+            @NonNull PackageManager packageManager, @Nullable String targetPackage) {
+        Map<String, PackageInfo> packageInfos = new HashMap<>();
+        if (targetPackage == null) {
+            for (PackageInfo packageInfo : packageManager.getInstalledPackages(/* flags= */ 0)) {
+                packageInfos.put(packageInfo.packageName, packageInfo);
+            }
+        } else {
+            try {
+                packageInfos.put(targetPackage,
+                        packageManager.getPackageInfo(targetPackage, /* flags= */ 0));
+            } catch (PackageManager.NameNotFoundException e) {
+                Log.w(TAG, "Package not found: " + targetPackage);
+            }
+        }
+        return packageInfos;
+    }
+
+    private static long getVersionCode(Map<String, PackageInfo> packageInfos,
+            String packageName) {
+        PackageInfo packageInfo = packageInfos.get(packageName);
+        return packageInfo == null ? AppMetaData.UNKNOWN_VERSION : packageInfo.getLongVersionCode();
     }
 
     private static boolean shouldAddToLaunchables(@NonNull ComponentName componentName,
@@ -293,9 +528,13 @@ class AppLauncherUtils {
     }
 
     private static void selectMediaSourceAndFinish(Context context, ComponentName componentName,
-            CarMediaManager carMediaManager) {
+            MediaSourceSelector mediaSourceSelector) {
+        if (mediaSourceSelector == null) {
+            Log.w(TAG, "CarMediaManager not available, cannot select " + componentName);
+            return;
+        }
         try {
-            carMediaManager.setMediaSource(componentName, CarMediaManager.MEDIA_SOURCE_MODE_BROWSE);
+            mediaSourceSelector.selectMediaSource(componentName);
             if (context instanceof Activity) {
                 ((Activity) context).finish();
             }
@@ -307,23 +546,18 @@ class AppLauncherUtils {
     /**
      * 获取活动是否经过了分心优化
      *
-     * @param carPackageManager 这个 {@link CarPackageManager} 是系统的服务
-     * @param packageName       这个是应用程序的程序包名称
-     * @param activityName      这个是请求的活动名称
+     * @param doLookup      转发给 {@link CarPackageManager} 的查询
+     * @param componentName 这个是请求的活动
      * @return 如果提供的活动是分散注意力的最佳活动，则为true
      */
-    static boolean isActivityDistractionOptimized(
-            CarPackageManager carPackageManager, String packageName, String activityName) {
-        boolean isDistractionOptimized = false;
+    private static boolean isActivityDistractionOptimized(
+            DistractionOptimizationCache.Lookup doLookup, ComponentName componentName) {
         // 下面代码目的是 尝试获取分心优化信息
         try {
-            if (carPackageManager != null) {
-                isDistractionOptimized =
-                        carPackageManager.isActivityDistractionOptimized(packageName, activityName);
-            }
+            return doLookup.isActivityDistractionOptimized(componentName);
         } catch (CarNotConnectedException e) {
             Log.e(TAG, "获取DO信息时车辆未连接", e);
+            return false;
         }
-        return isDistractionOptimized;
     }
 }
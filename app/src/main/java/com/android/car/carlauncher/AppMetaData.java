@@ -20,31 +20,51 @@ import android.annotation.Nullable;
 import android.content.ComponentName;
 import android.content.Context;
 import android.content.Intent;
-import android.graphics.drawable.Drawable;
 
+import java.text.CollationKey;
 import java.util.function.Consumer;
 
 /**
- * 应用程序的元数据，包括显示名称、组件名称、可绘制图标和
+ * 应用程序的元数据，包括显示名称、组件名称、图标句柄和
  * 打开应用程序或媒体中心（用于媒体服务）的意图。
 */
 final class AppMetaData {
+    /** 无法获取包版本时使用的版本号。 */
+    static final long UNKNOWN_VERSION = -1;
+
     // 应用程序的显示名称
     @Nullable
     private final String mDisplayName;
     // 应用程序的组件名称
     private final ComponentName mComponentName;
-    private final Drawable mIcon;
+    // 组件所在包的versionCode
+    private final long mVersionCode;
+    private final AppIconHandle mIcon;
     private final boolean mIsDistractionOptimized;
     private final Consumer<Context> mLaunchCallback;
     private final Consumer<Context> mAlternateLaunchCallback;
 
+    // 显示名称的排序键及计算它时 AppLabelCollator 的代数
+    private static final class SortKey {
+        final CollationKey mCollationKey;
+        final int mGeneration;
+
+        SortKey(CollationKey collationKey, int generation) {
+            mCollationKey = collationKey;
+            mGeneration = generation;
+        }
+    }
+
+    @Nullable
+    private volatile SortKey mSortKey;
+
     /**
      * 应用元数据 的 构造方法
      *
      * @param displayName            要在启动器中显示的名称
      * @param componentName          组件名称
-     * @param icon                   应用程序的图标
+     * @param versionCode            组件所在包的versionCode，未知时为{@link #UNKNOWN_VERSION}
+     * @param icon                   应用程序图标的延迟句柄
      * @param isDistractionOptimized mainLaunchIntent是否安全驾驶
      * @param launchCallback         启动此应用程序要执行的操作
      * @param alternateLaunchCallback 要执行的临时替代操作（例如：媒体应用程序这允许打开他们自己的UI）
@@ -52,12 +72,14 @@ final class AppMetaData {
     AppMetaData(
             CharSequence displayName,
             ComponentName componentName,
-            Drawable icon,
+            long versionCode,
+            AppIconHandle icon,
             boolean isDistractionOptimized,
             Consumer<Context> launchCallback,
             Consumer<Context> alternateLaunchCallback) {
         mDisplayName = displayName == null ? "" : displayName.toString();
         mComponentName = componentName;
+        mVersionCode = versionCode;
         mIcon = icon;
         mIsDistractionOptimized = isDistractionOptimized;
         mLaunchCallback = launchCallback;
@@ -76,6 +98,10 @@ final class AppMetaData {
         return mComponentName;
     }
 
+    long getVersionCode() {
+        return mVersionCode;
+    }
+
     Consumer<Context> getLaunchCallback() {
         return mLaunchCallback;
     }
@@ -84,7 +110,7 @@ final class AppMetaData {
         return mAlternateLaunchCallback;
     }
 
-    public Drawable getIcon() {
+    AppIconHandle getIcon() {
         return mIcon;
     }
 
@@ -92,6 +118,21 @@ final class AppMetaData {
         return mIsDistractionOptimized;
     }
 
+    /**
+     * 返回显示名称在当前语言区域下的排序键。键只计算一次，语言区域变化后重新计算。
+     */
+    CollationKey getCollationKey() {
+        AppLabelCollator collator = AppLabelCollator.getInstance();
+        // 先读代数再取键：即使期间语言区域变化，最坏情况也只是下次多算一次
+        int generation = collator.getGeneration();
+        SortKey sortKey = mSortKey;
+        if (sortKey == null || sortKey.mGeneration != generation) {
+            sortKey = new SortKey(collator.getCollationKey(mDisplayName), generation);
+            mSortKey = sortKey;
+        }
+        return sortKey.mCollationKey;
+    }
+
     /**
      * 两个AppMetaData的相等性取决于组件名称是否相同。
      * @param o与此AppMetaData对象进行比较的对象
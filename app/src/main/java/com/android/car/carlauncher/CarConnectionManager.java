@@ -0,0 +1,119 @@
+/*
+ * Copyright (C) 2022 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.car.carlauncher;
+
+import android.car.Car;
+import android.content.Context;
+import android.util.Log;
+
+import androidx.annotation.MainThread;
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import java.io.PrintWriter;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 进程级的汽车服务连接。
+ *
+ * <p>第一次使用时连接一次并一直保持，汽车服务重启后由 {@link Car} 自动重新连接。活动和主屏卡片
+ * 不再各自创建和断开连接，只是注册监听器并在每次连接时重新获取管理器，
+ * 因此反复打开关闭应用网格不会重新连接，汽车服务重启后也不会留下失效的管理器。
+ *
+ * <p>所有方法都必须在主线程调用，回调也都在主线程上进行。
+ */
+public final class CarConnectionManager {
+    private static final String TAG = "CarConnectionManager";
+
+    /** 汽车服务连接状态变化的监听器。 */
+    public interface Listener {
+        /** 连接就绪时回调；添加监听器时已经连接则立即回调一次。 */
+        void onCarConnected(@NonNull Car car);
+
+        /** 汽车服务断开时回调，之前获取的管理器全部失效，重新连接后会再次回调连接。 */
+        void onCarDisconnected();
+    }
+
+    private static CarConnectionManager sInstance;
+
+    private final List<Listener> mListeners = new ArrayList<>();
+    @Nullable
+    private Car mConnectedCar;
+    private int mConnections;
+
+    /** 返回进程中唯一的实例，第一次调用时开始连接。 */
+    @MainThread
+    @NonNull
+    public static CarConnectionManager getInstance(@NonNull Context context) {
+        if (sInstance == null) {
+            sInstance = new CarConnectionManager(context.getApplicationContext());
+        }
+        return sInstance;
+    }
+
+    private CarConnectionManager(Context context) {
+        Car.createCar(context, /* handler= */ null, Car.CAR_WAIT_TIMEOUT_DO_NOT_WAIT,
+                this::onCarLifecycleChanged);
+    }
+
+    /** 如果汽车服务已经连接，则返回{@code true}。 */
+    @MainThread
+    public boolean isConnected() {
+        return mConnectedCar != null;
+    }
+
+    /** 添加监听器。如果已经连接，立即回调一次 {@link Listener#onCarConnected}。 */
+    @MainThread
+    public void addListener(@NonNull Listener listener) {
+        mListeners.add(listener);
+        if (mConnectedCar != null) {
+            listener.onCarConnected(mConnectedCar);
+        }
+    }
+
+    @MainThread
+    public void removeListener(@NonNull Listener listener) {
+        mListeners.remove(listener);
+    }
+
+    void dump(@NonNull String prefix, @NonNull PrintWriter writer) {
+        writer.println(prefix + TAG + ": connected=" + isConnected()
+                + ", connections=" + mConnections + ", listeners=" + mListeners.size());
+    }
+
+    private void onCarLifecycleChanged(Car car, boolean ready) {
+        // 复制一份，监听器可能在回调中移除自己
+        List<Listener> listeners = new ArrayList<>(mListeners);
+        if (!ready) {
+            if (mConnectedCar == null) {
+                return;
+            }
+            Log.w(TAG, "Car service disconnected, waiting for reconnection");
+            mConnectedCar = null;
+            for (Listener listener : listeners) {
+                listener.onCarDisconnected();
+            }
+            return;
+        }
+        mConnectedCar = car;
+        mConnections++;
+        for (Listener listener : listeners) {
+            listener.onCarConnected(car);
+        }
+    }
+}
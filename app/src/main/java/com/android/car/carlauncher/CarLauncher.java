@@ -27,23 +27,29 @@ import android.content.ActivityNotFoundException;
 import android.content.ComponentName;
 import android.content.Intent;
 import android.content.pm.PackageManager;
-import android.content.res.Configuration;
 import android.os.Bundle;
+import android.os.Looper;
 import android.util.Log;
 import android.view.Display;
 import android.view.ViewGroup;
 import android.view.WindowManager;
 
 import androidx.collection.ArraySet;
+import androidx.fragment.app.Fragment;
 import androidx.fragment.app.FragmentActivity;
 import androidx.fragment.app.FragmentTransaction;
 import androidx.lifecycle.ViewModelProvider;
 
+import com.android.car.carlauncher.homescreen.HomeCardBootstrap;
+import com.android.car.carlauncher.homescreen.HomeCardFragment;
 import com.android.car.carlauncher.homescreen.HomeCardModule;
+import com.android.car.carlauncher.homescreen.HomeCardModuleRegistry;
 import com.android.car.internal.common.UserHelperLite;
 import com.android.wm.shell.TaskView;
 import com.android.wm.shell.common.HandlerExecutor;
 
+import java.io.FileDescriptor;
+import java.io.PrintWriter;
 import java.net.URISyntaxException;
 import java.util.Set;
 
@@ -74,6 +80,7 @@ public class CarLauncher extends FragmentActivity {
     private boolean mFocused;
     private int mCarLauncherTaskId = INVALID_TASK_ID;
     private Set<HomeCardModule> mHomeCardModules;
+    private final StartupTimeline mStartupTimeline = StartupTimeline.getInstance();
 
     /** 在我们记录“活动”已完全绘制后，设置为｛@code true｝。 */
     private boolean mIsReadyLogged;
@@ -83,6 +90,7 @@ public class CarLauncher extends FragmentActivity {
         @Override
         public void onInitialized() {
             if (DEBUG) Log.d(TAG, "onInitialized(" + getUserId() + ")");
+            mStartupTimeline.endAsyncSection(StartupTimeline.PHASE_TASK_VIEW_INITIALIZED);
             mTaskViewReady = true;
             startMapsInTaskView();
             maybeLogReady();
@@ -123,7 +131,12 @@ public class CarLauncher extends FragmentActivity {
 
     @Override
     protected void onCreate(Bundle savedInstanceState) {
+        mStartupTimeline.start();
+        mStartupTimeline.beginSection(StartupTimeline.PHASE_ON_CREATE);
         super.onCreate(savedInstanceState);
+        if (savedInstanceState != null) {
+            removeRestoredCards();
+        }
 
         mCarLauncherTaskId = getTaskId();
         ActivityTaskManager.getInstance().registerTaskStackListener(mTaskStackListener);
@@ -135,10 +148,13 @@ public class CarLauncher extends FragmentActivity {
 
         // 在多窗口模式下『car_launcher_multiwindow』不显示“地图”面板。
         // 注意：拆分屏幕的CTS测试与启动器默认活动的活动视图不兼容
+        mStartupTimeline.beginSection(StartupTimeline.PHASE_SET_CONTENT_VIEW);
         if (isInMultiWindowMode() || isInPictureInPictureMode()) {
             setContentView(R.layout.car_launcher_multiwindow); // Derry新增背景红色
+            mStartupTimeline.endSection(StartupTimeline.PHASE_SET_CONTENT_VIEW);
         } else {
             setContentView(R.layout.car_launcher); // Derry新增背景绿色
+            mStartupTimeline.endSection(StartupTimeline.PHASE_SET_CONTENT_VIEW);
             // We don't want to show Map card unnecessarily for the headless user 0.
             if (!UserHelperLite.isHeadlessSystemUser(getUserId())) {
                 ViewGroup mapsCard = findViewById(R.id.maps_card);
@@ -149,16 +165,27 @@ public class CarLauncher extends FragmentActivity {
         }
 
         // 此方法用于 初始化『天气』和『音乐』fragment 区域信息
+        // 只在创建时调用一次；uiMode变化由HomeCardFragment自己处理，不替换片段
         initializeCards();
+
+        // 主屏幕空闲后再预热应用目录并在后台预先填充应用网格的视图，不与主屏幕的启动争抢主线程
+        Looper.myQueue().addIdleHandler(() -> {
+            AppCatalogRepository.getInstance(this).load();
+            AppGridViewPool.prewarm(this);
+            return false;
+        });
         
         // Derry新增点
         Toast.makeText(this, "Derry-欢迎进入 CarLauncher onCreate", Toast.LENGTH_SHORT).show();
         Log.d("Derry", "Derry-欢迎进入 CarLauncher onCreate");
+        mStartupTimeline.endSection(StartupTimeline.PHASE_ON_CREATE);
     }
 
     private void setUpTaskView(ViewGroup parent) {
         mTaskViewManager = new TaskViewManager(this,
                 new HandlerExecutor(getMainThreadHandler()));
+        // 从创建TaskView到其初始化完成，跨越多个回调
+        mStartupTimeline.beginAsyncSection(StartupTimeline.PHASE_TASK_VIEW_INITIALIZED);
         mTaskViewManager.createTaskView(taskView -> {
             taskView.setListener(getMainExecutor(), mTaskViewListener);
             parent.addView(taskView);
@@ -217,12 +244,15 @@ public class CarLauncher extends FragmentActivity {
             // 要在TaskView中显示“活动”，“活动”应位于中的主机任务上方
             // 活动堆栈。此选项仅影响主机“活动”正在恢复。
             options.setTaskAlwaysOnTop(true);
+            mStartupTimeline.beginSection(StartupTimeline.PHASE_START_MAPS);
             mTaskView.startActivity(
                     PendingIntent.getActivity(this, /* requestCode= */ 0, getMapsIntent(),
                             PendingIntent.FLAG_IMMUTABLE | PendingIntent.FLAG_UPDATE_CURRENT),
                     /* fillInIntent= */ null, options, null /* launchBounds */);
         } catch (ActivityNotFoundException e) {
             Log.w(TAG, "Maps activity not found", e);
+        } finally {
+            mStartupTimeline.endSection(StartupTimeline.PHASE_START_MAPS);
         }
     }
 
@@ -254,39 +284,80 @@ public class CarLauncher extends FragmentActivity {
         return defaultIntent;
     }
 
-    @Override
-    public void onConfigurationChanged(Configuration newConfig) {
-        super.onConfigurationChanged(newConfig);
-        initializeCards();
-    }
-
     private void initializeCards() {
         if (mHomeCardModules == null) {
+            mStartupTimeline.beginSection(StartupTimeline.PHASE_INIT_CARDS);
             mHomeCardModules = new ArraySet<>();
             for (String providerClassName : getResources().getStringArray(
                     R.array.config_homeCardModuleClasses)) {
-                try {
-                    long reflectionStartTime = System.currentTimeMillis();
-                    HomeCardModule cardModule = (HomeCardModule) Class.forName(
-                            providerClassName).newInstance();
+                String phase = StartupTimeline.PHASE_INIT_CARD_PREFIX + providerClassName;
+                mStartupTimeline.beginSection(phase);
+                long startTime = System.currentTimeMillis();
+                // 自带的模块由注册表直接构造，只有OEM覆盖的类才使用反射
+                HomeCardModule cardModule = HomeCardModuleRegistry.create(providerClassName);
+                if (cardModule != null) {
                     cardModule.setViewModelProvider(new ViewModelProvider( /* owner= */this));
                     mHomeCardModules.add(cardModule);
-                    if (DEBUG) {
-                        long reflectionTime = System.currentTimeMillis() - reflectionStartTime;
-                        Log.d(TAG, "HomeCardModule类的初始化 " + providerClassName
-                                + " took " + reflectionTime + " ms");
-                    }
-                } catch (IllegalAccessException | InstantiationException |
-                        ClassNotFoundException e) {
-                    Log.w(TAG, "无法创建HomeCardProvider类 " + providerClassName, e);
+                }
+                mStartupTimeline.endSection(phase);
+                if (DEBUG) {
+                    long initTime = System.currentTimeMillis() - startTime;
+                    Log.d(TAG, "HomeCardModule类的初始化 " + providerClassName
+                            + " took " + initTime + " ms, registered="
+                            + HomeCardModuleRegistry.isRegistered(providerClassName));
                 }
             }
+            // 模型在工作线程上并行准备，主线程只在全部完成后添加卡片的视图
+            mStartupTimeline.beginAsyncSection(StartupTimeline.PHASE_PREPARE_CARDS);
+            new HomeCardBootstrap(getMainExecutor()).prepare(this, mHomeCardModules, () -> {
+                mStartupTimeline.endAsyncSection(StartupTimeline.PHASE_PREPARE_CARDS);
+                attachCards();
+                mStartupTimeline.mark(StartupTimeline.EVENT_CARDS_READY);
+            });
+            mStartupTimeline.endSection(StartupTimeline.PHASE_INIT_CARDS);
+        }
+    }
+
+    /**
+     * 重建活动时片段管理器会恢复上一个实例的卡片片段，但它们没有演示者。卡片在模型准备完成后
+     * 才会重新添加，所以这里同步移除恢复的片段，避免它们在准备期间创建视图。
+     */
+    private void removeRestoredCards() {
+        FragmentTransaction transaction = null;
+        for (Fragment fragment : getSupportFragmentManager().getFragments()) {
+            if (fragment instanceof HomeCardFragment) {
+                if (transaction == null) {
+                    transaction = getSupportFragmentManager().beginTransaction();
+                }
+                transaction.remove(fragment);
+            }
+        }
+        if (transaction != null) {
+            transaction.commitNow();
+        }
+    }
+
+    private void attachCards() {
+        if (isDestroyed()) {
+            return;
         }
         FragmentTransaction transaction = getSupportFragmentManager().beginTransaction();
         for (HomeCardModule cardModule : mHomeCardModules) {
             transaction.replace(cardModule.getCardResId(), cardModule.getCardView());
         }
-        transaction.commitNow();
+        // 准备完成时活动可能已经保存了状态，卡片的片段不依赖保存的状态
+        transaction.commitNowAllowingStateLoss();
+    }
+
+    @Override
+    public void dump(String prefix, FileDescriptor fd, PrintWriter writer, String[] args) {
+        super.dump(prefix, fd, writer, args);
+        mStartupTimeline.dump(prefix + "  ", writer);
+        if (mHomeCardModules != null) {
+            for (HomeCardModule cardModule : mHomeCardModules) {
+                cardModule.getCardPresenter().dump(prefix + "  ", writer);
+            }
+        }
     }
 
     /** 记录“活动”已就绪。用于启动时诊断。 */
@@ -0,0 +1,216 @@
+/*
+ * Copyright (C) 2022 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.car.carlauncher;
+
+import android.car.CarNotConnectedException;
+import android.car.content.pm.CarPackageManager;
+import android.content.ComponentName;
+import android.content.pm.PackageInfo;
+import android.util.AtomicFile;
+import android.util.Log;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import androidx.annotation.WorkerThread;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 缓存 {@link CarPackageManager#isActivityDistractionOptimized} 的结果。
+ *
+ * <p>缓存以包名和活动名为键，并记录查询时包的versionCode和lastUpdateTime；
+ * 两者之一变化时条目自动失效，因此在启动器不在前台期间发生的更新也能被发现。
+ * 除此之外，条目会被包变化广播显式失效，并在每次完整扫描后清除已不存在的活动，
+ * 因此进程不在运行期间卸载的包也不会一直留在磁盘上。缓存会持久化到磁盘，进程重启后依然有效，
+ * 这样一次没有任何变化的刷新不会产生DO相关的binder调用。
+ *
+ * <p>此类不是线程安全的，除 {@link #dump} 外只能在 {@link AppCatalogLoader} 的后台线程上使用。
+ */
+final class DistractionOptimizationCache {
+    private static final String TAG = "DOCache";
+
+    private static final int MAGIC = 0x444f4343; // "DOCC"
+    private static final int FORMAT_VERSION = 1;
+
+    /** 查询活动是否经过分心优化，通常转发给 {@link CarPackageManager}。 */
+    interface Lookup {
+        boolean isActivityDistractionOptimized(@NonNull ComponentName componentName)
+                throws CarNotConnectedException;
+    }
+
+    private static final class Entry {
+        final long mVersionCode;
+        final long mLastUpdateTime;
+        final boolean mIsDistractionOptimized;
+
+        Entry(long versionCode, long lastUpdateTime, boolean isDistractionOptimized) {
+            mVersionCode = versionCode;
+            mLastUpdateTime = lastUpdateTime;
+            mIsDistractionOptimized = isDistractionOptimized;
+        }
+    }
+
+    private final AtomicFile mFile;
+    private final Map<ComponentName, Entry> mEntries = new HashMap<>();
+    private boolean mLoaded;
+    private boolean mDirty;
+
+    // 供dump在其它线程上读取，不访问mEntries
+    private volatile int mEntryCount;
+    private final AtomicInteger mHits = new AtomicInteger();
+    private final AtomicInteger mBinderCalls = new AtomicInteger();
+
+    DistractionOptimizationCache(@NonNull File file) {
+        mFile = new AtomicFile(file);
+    }
+
+    /**
+     * 返回给定活动是否经过分心优化，优先使用缓存的结果。
+     *
+     * @param lookup      缓存未命中时的查询
+     * @param packageInfo 活动所在包的当前信息；为{@code null}时不使用缓存
+     */
+    @WorkerThread
+    boolean isActivityDistractionOptimized(@NonNull Lookup lookup,
+            @NonNull ComponentName componentName, @Nullable PackageInfo packageInfo) {
+        ensureLoaded();
+        Entry entry = mEntries.get(componentName);
+        if (entry != null && packageInfo != null
+                && entry.mVersionCode == packageInfo.getLongVersionCode()
+                && entry.mLastUpdateTime == packageInfo.lastUpdateTime) {
+            mHits.incrementAndGet();
+            return entry.mIsDistractionOptimized;
+        }
+
+        mBinderCalls.incrementAndGet();
+        boolean isDistractionOptimized;
+        try {
+            isDistractionOptimized = lookup.isActivityDistractionOptimized(componentName);
+        } catch (CarNotConnectedException e) {
+            // 失败的结果不缓存，下次刷新时重试
+            Log.e(TAG, "Car not connected when getting DO info", e);
+            return false;
+        }
+        if (packageInfo != null) {
+            mEntries.put(componentName, new Entry(packageInfo.getLongVersionCode(),
+                    packageInfo.lastUpdateTime, isDistractionOptimized));
+            onEntriesChanged();
+        }
+        return isDistractionOptimized;
+    }
+
+    /** 丢弃给定包中所有活动的缓存结果。 */
+    @WorkerThread
+    void invalidatePackage(@NonNull String packageName) {
+        ensureLoaded();
+        if (mEntries.keySet().removeIf(cn -> cn.getPackageName().equals(packageName))) {
+            onEntriesChanged();
+        }
+    }
+
+    /**
+     * 丢弃不在给定集合中的活动，用于完整扫描之后。这样可以清除进程不在运行期间卸载的包，
+     * 以及广播被合并或丢失的包。
+     *
+     * @param components 完整扫描得到的所有组件
+     */
+    @WorkerThread
+    void retainComponents(@NonNull Set<ComponentName> components) {
+        ensureLoaded();
+        if (mEntries.keySet().retainAll(components)) {
+            onEntriesChanged();
+        }
+    }
+
+    /** 如果缓存有变化，则原子地写回磁盘。 */
+    @WorkerThread
+    void persist() {
+        if (!mDirty) {
+            return;
+        }
+        FileOutputStream fos = null;
+        try {
+            fos = mFile.startWrite();
+            DataOutputStream out = new DataOutputStream(new BufferedOutputStream(fos));
+            out.writeInt(MAGIC);
+            out.writeInt(FORMAT_VERSION);
+            out.writeInt(mEntries.size());
+            for (Map.Entry<ComponentName, Entry> e : mEntries.entrySet()) {
+                out.writeUTF(e.getKey().flattenToString());
+                out.writeLong(e.getValue().mVersionCode);
+                out.writeLong(e.getValue().mLastUpdateTime);
+                out.writeBoolean(e.getValue().mIsDistractionOptimized);
+            }
+            out.flush();
+            mFile.finishWrite(fos);
+            mDirty = false;
+        } catch (IOException e) {
+            Log.w(TAG, "Failed to persist DO cache", e);
+            mFile.failWrite(fos);
+        }
+    }
+
+    private void ensureLoaded() {
+        if (mLoaded) {
+            return;
+        }
+        mLoaded = true;
+        try (DataInputStream in = new DataInputStream(
+                new BufferedInputStream(mFile.openRead()))) {
+            if (in.readInt() != MAGIC || in.readInt() != FORMAT_VERSION) {
+                return;
+            }
+            int count = in.readInt();
+            for (int i = 0; i < count; i++) {
+                ComponentName componentName = ComponentName.unflattenFromString(in.readUTF());
+                Entry entry = new Entry(in.readLong(), in.readLong(), in.readBoolean());
+                if (componentName != null) {
+                    mEntries.put(componentName, entry);
+                }
+            }
+        } catch (FileNotFoundException e) {
+            // 第一次运行，还没有缓存
+        } catch (IOException e) {
+            Log.w(TAG, "Discarding unreadable DO cache", e);
+            mEntries.clear();
+        }
+        mEntryCount = mEntries.size();
+    }
+
+    private void onEntriesChanged() {
+        mDirty = true;
+        mEntryCount = mEntries.size();
+    }
+
+    /** 可以在任意线程调用，只读取计数。 */
+    void dump(@NonNull String prefix, @NonNull PrintWriter writer) {
+        writer.println(prefix + TAG + ": entries=" + mEntryCount + ", hits=" + mHits.get()
+                + ", binderCalls=" + mBinderCalls.get());
+    }
+}
@@ -0,0 +1,127 @@
+/*
+ * Copyright (C) 2022 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.car.carlauncher;
+
+import android.os.Handler;
+import android.os.Looper;
+import android.util.Log;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.VisibleForTesting;
+
+import java.io.PrintWriter;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * 合并短时间内到达的 ACTION_PACKAGE_* 广播。
+ *
+ * <p>窗口内第一条广播会安排一次刷新，窗口结束时把期间收到的所有包合并成一批交给
+ * {@link Listener}。同一个包在窗口内多次出现只会处理一次，以最后一次的状态为准。
+ * 所有方法都必须在构造时传入的 {@link Looper} 所在线程调用。
+ */
+final class PackageChangeCoalescer {
+    private static final String TAG = "PackageChangeCoalescer";
+
+    /** 窗口结束时接收合并后的包变化。 */
+    interface Listener {
+        /**
+         * @param updatedPackages 被安装、变更或替换的包
+         * @param removedPackages 被卸载的包
+         */
+        void onPackagesChanged(@NonNull Set<String> updatedPackages,
+                @NonNull Set<String> removedPackages);
+    }
+
+    private final Handler mHandler;
+    private final long mWindowMs;
+    private final Listener mListener;
+    private final Runnable mFlushRunnable = this::flush;
+
+    // 包名 -> 是否被卸载。保持到达顺序以便日志可读。
+    private final Map<String, Boolean> mPendingChanges = new LinkedHashMap<>();
+
+    private int mBroadcastsReceived;
+    private int mRefreshesExecuted;
+
+    PackageChangeCoalescer(@NonNull Looper looper, long windowMs, @NonNull Listener listener) {
+        mHandler = new Handler(looper);
+        mWindowMs = windowMs;
+        mListener = listener;
+    }
+
+    /** 记录一次包变化；如果当前没有打开的窗口，则开启一个新窗口。 */
+    void onPackageChanged(@NonNull String packageName, boolean removed) {
+        mBroadcastsReceived++;
+        boolean windowOpen = !mPendingChanges.isEmpty();
+        // 先移除再放入，使最后一次状态决定该包在批次中的位置和类型
+        mPendingChanges.remove(packageName);
+        mPendingChanges.put(packageName, removed);
+        if (!windowOpen) {
+            mHandler.postDelayed(mFlushRunnable, mWindowMs);
+        }
+    }
+
+    /** 丢弃所有尚未处理的变化。 */
+    void cancel() {
+        mHandler.removeCallbacks(mFlushRunnable);
+        mPendingChanges.clear();
+    }
+
+    /** 立即处理所有尚未处理的变化。 */
+    @VisibleForTesting
+    void flush() {
+        mHandler.removeCallbacks(mFlushRunnable);
+        if (mPendingChanges.isEmpty()) {
+            return;
+        }
+        Set<String> updated = new HashSet<>();
+        Set<String> removed = new HashSet<>();
+        for (Map.Entry<String, Boolean> change : mPendingChanges.entrySet()) {
+            (change.getValue() ? removed : updated).add(change.getKey());
+        }
+        mPendingChanges.clear();
+        mRefreshesExecuted++;
+        if (Log.isLoggable(TAG, Log.DEBUG)) {
+            Log.d(TAG, "Flushing " + updated.size() + " updated, " + removed.size()
+                    + " removed; broadcasts=" + mBroadcastsReceived
+                    + ", refreshes=" + mRefreshesExecuted);
+        }
+        mListener.onPackagesChanged(Collections.unmodifiableSet(updated),
+                Collections.unmodifiableSet(removed));
+    }
+
+    /** 返回收到的包变化广播总数。 */
+    int getBroadcastsReceived() {
+        return mBroadcastsReceived;
+    }
+
+    /** 返回实际执行的批量刷新次数。 */
+    int getRefreshesExecuted() {
+        return mRefreshesExecuted;
+    }
+
+    void dump(@NonNull String prefix, @NonNull PrintWriter writer) {
+        writer.println(prefix + TAG + ": windowMs=" + mWindowMs
+                + ", broadcastsReceived=" + mBroadcastsReceived
+                + ", refreshesExecuted=" + mRefreshesExecuted
+                + ", pending=" + mPendingChanges.size());
+    }
+}
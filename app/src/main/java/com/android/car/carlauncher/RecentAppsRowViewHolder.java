@@ -25,21 +25,40 @@ import android.widget.LinearLayout;
 
 import androidx.recyclerview.widget.RecyclerView;
 
+import java.util.ArrayList;
 import java.util.List;
 
 /**
  * 包含一行最近使用的应用程序和分隔符的视图保持器。
+ *
+ * <p>行中的 {@code mColumnNumber} 个应用项在创建时一次性生成，之后每次绑定只在原位重新绑定，
+ * 没有应用的位置设为不可见以充当填充，不再重复填充布局。
  */
 public class RecentAppsRowViewHolder extends RecyclerView.ViewHolder {
-    private final Context mContext;
     private final int mColumnNumber;
     private final LinearLayout mRecentAppsRow;
+    private final List<AppItemViewHolder> mAppItemHolders;
 
-    public RecentAppsRowViewHolder(View view, Context context) {
+    public RecentAppsRowViewHolder(View view, Context context,
+            AppItemViewHolder.BindingResources bindingResources) {
         super(view);
-        mContext = context;
         mRecentAppsRow = view.findViewById(R.id.recent_apps_row);
         mColumnNumber = context.getResources().getInteger(R.integer.car_app_selector_column_number);
+        mRecentAppsRow.setWeightSum(mColumnNumber);
+
+        LayoutInflater inflater = LayoutInflater.from(context);
+        mAppItemHolders = new ArrayList<>(mColumnNumber);
+        for (int i = 0; i < mColumnNumber; i++) {
+            View itemView = inflater.inflate(R.layout.app_item, mRecentAppsRow, false);
+            LinearLayout.LayoutParams params =
+                    (LinearLayout.LayoutParams) itemView.getLayoutParams();
+            params.width = 0;
+            params.height = ViewGroup.LayoutParams.WRAP_CONTENT;
+            params.weight = 1;
+            params.bottomMargin = 0;
+            mRecentAppsRow.addView(itemView);
+            mAppItemHolders.add(new AppItemViewHolder(itemView, context, bindingResources));
+        }
     }
 
     /**
@@ -48,39 +67,31 @@ public class RecentAppsRowViewHolder extends RecyclerView.ViewHolder {
      * @param apps Pass {@code null} 将清空该行
      */
     public void bind(@Nullable List<AppMetaData> apps, boolean isDistractionOptimizationRequired) {
-        // Empty out the views
-        mRecentAppsRow.removeAllViews();
-        mRecentAppsRow.setWeightSum(mColumnNumber);
-
-        if (apps == null) {
-            return;
+        int size = apps == null ? 0 : Math.min(mColumnNumber, apps.size());
+        for (int i = 0; i < mColumnNumber; i++) {
+            AppItemViewHolder holder = mAppItemHolders.get(i);
+            if (i < size) {
+                holder.bind(apps.get(i), isDistractionOptimizationRequired);
+                holder.itemView.setVisibility(View.VISIBLE);
+            } else {
+                // 保持不可见但占据位置，以填充整个第一行
+                holder.bind(null, isDistractionOptimizationRequired);
+                holder.itemView.setVisibility(View.INVISIBLE);
+            }
         }
+    }
 
-        int size = Math.min(mColumnNumber, apps.size());
-        for (int i = 0; i < size; i++) {
-            View view =
-                    LayoutInflater.from(mContext).inflate(R.layout.app_item, mRecentAppsRow, false);
-
-            AppItemViewHolder holder = new AppItemViewHolder(view, mContext);
-            holder.bind(apps.get(i), isDistractionOptimizationRequired);
-
-            LinearLayout.LayoutParams params =
-                    (LinearLayout.LayoutParams) view.getLayoutParams();
-            params.width = 0;
-            params.height = ViewGroup.LayoutParams.WRAP_CONTENT;
-            params.weight = 1;
-            params.bottomMargin = 0;
-            mRecentAppsRow.addView(view);
+    /** 设置行中各应用项点击时使用的上下文，见 {@link AppItemViewHolder#setHostContext}。 */
+    void setHostContext(Context context) {
+        for (AppItemViewHolder holder : mAppItemHolders) {
+            holder.setHostContext(context);
         }
+    }
 
-        // 添加空视图以填充整个第一行
-        for (int i = size; i < mColumnNumber; i++) {
-            LinearLayout.LayoutParams params =
-                    new LinearLayout.LayoutParams(
-                            0, ViewGroup.LayoutParams.WRAP_CONTENT, /* weight= */ 1);
-            mRecentAppsRow.addView(new View(mContext), params);
+    /** 只更新行中各应用项与驾驶限制相关的部分。 */
+    void updateDistractionOptimizationRequired(boolean isDistractionOptimizationRequired) {
+        for (AppItemViewHolder holder : mAppItemHolders) {
+            holder.updateDistractionOptimizationRequired(isDistractionOptimizationRequired);
         }
-
     }
 }
-
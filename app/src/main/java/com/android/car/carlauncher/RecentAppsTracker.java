@@ -0,0 +1,362 @@
+/*
+ * Copyright (C) 2022 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.car.carlauncher;
+
+import android.app.usage.UsageEvents;
+import android.app.usage.UsageStats;
+import android.app.usage.UsageStatsManager;
+import android.os.Process;
+import android.text.format.DateUtils;
+import android.util.AtomicFile;
+import android.util.Log;
+
+import androidx.annotation.MainThread;
+import androidx.annotation.NonNull;
+import androidx.annotation.VisibleForTesting;
+import androidx.annotation.WorkerThread;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.LongSupplier;
+
+/**
+ * 维护最近使用的应用，替代每次恢复时查询一整年的 {@link UsageStats}。
+ *
+ * <p>只保存最近使用的前K个包，并持久化到磁盘。每次刷新只通过
+ * {@link UsageStatsManager#queryEvents} 读取上一个检查点之后的事件，
+ * 因此开销与两次刷新之间的事件数成正比，而不是与一年内使用过的包数成正比。
+ * 第一次运行或时钟回拨时，用一次年度统计重新初始化。
+ *
+ * <p>与 {@link UsageStats#getLastTimeUsed()} 一致，只有活动事件计为使用；
+ * 前台服务不算，否则媒体和导航应用会一直排在最前面。
+ *
+ * <p>除构造方法和 {@link #update()} 外，所有方法都必须在主线程调用。
+ */
+final class RecentAppsTracker {
+    private static final String TAG = "RecentAppsTracker";
+
+    private static final int MAGIC = 0x52415050; // "RAPP"
+    private static final int FORMAT_VERSION = 1;
+
+    /** 最近使用列表更新后在主线程上回调。 */
+    interface Callback {
+        void onRecentAppsChanged(@NonNull List<RecentApp> recentApps);
+    }
+
+    /** 使用情况的查询，结果复制为普通的记录，测试中替换为假的实现。 */
+    interface UsageSource {
+        /** 返回 [beginTime, endTime) 内的事件，按时间顺序排列。 */
+        @NonNull
+        List<UsageEvent> queryEvents(long beginTime, long endTime);
+
+        /** 返回 [beginTime, endTime) 内的年度统计，同一个包可能出现多次。 */
+        @NonNull
+        List<PackageUsage> queryYearlyUsage(long beginTime, long endTime);
+    }
+
+    /** {@link UsageEvents.Event} 中用到的字段。 */
+    static final class UsageEvent {
+        final String mPackageName;
+        final long mTimeStamp;
+        final int mEventType;
+
+        UsageEvent(String packageName, long timeStamp, int eventType) {
+            mPackageName = packageName;
+            mTimeStamp = timeStamp;
+            mEventType = eventType;
+        }
+    }
+
+    /** {@link UsageStats} 中用到的字段。 */
+    static final class PackageUsage {
+        final String mPackageName;
+        final long mLastTimeUsed;
+        final long mTotalTimeInForeground;
+
+        PackageUsage(String packageName, long lastTimeUsed, long totalTimeInForeground) {
+            mPackageName = packageName;
+            mLastTimeUsed = lastTimeUsed;
+            mTotalTimeInForeground = totalTimeInForeground;
+        }
+    }
+
+    /** 一个最近使用的包。 */
+    static final class RecentApp {
+        final String mPackageName;
+        final long mLastTimeUsed;
+        // 是否曾经在前台显示过，仅在后台运行的应用不会出现在最近使用的应用中
+        final boolean mUsedInForeground;
+
+        RecentApp(String packageName, long lastTimeUsed, boolean usedInForeground) {
+            mPackageName = packageName;
+            mLastTimeUsed = lastTimeUsed;
+            mUsedInForeground = usedInForeground;
+        }
+    }
+
+    private final ExecutorService mBackgroundExecutor = Executors.newSingleThreadExecutor(
+            runnable -> new Thread(() -> {
+                Process.setThreadPriority(Process.THREAD_PRIORITY_BACKGROUND);
+                runnable.run();
+            }, TAG));
+    private final Executor mMainExecutor;
+    private final Callback mCallback;
+    private final UsageSource mUsageSource;
+    private final AtomicFile mFile;
+    private final int mMaxEntries;
+    private final LongSupplier mClock;
+
+    // 以下状态仅在后台线程访问
+    private final Map<String, RecentApp> mEntries = new HashMap<>();
+    private long mCheckpoint;
+    private boolean mLoaded;
+    private int mEventsProcessed;
+
+    // 最近一次发布的列表，按最近使用时间降序。仅在主线程访问。
+    private List<RecentApp> mRecentApps = Collections.emptyList();
+
+    /**
+     * @param maxEntries 保存的包数上限，应大于最近使用的应用行的列数，
+     *                   以便过滤掉自身和不能启动的包之后仍有足够的条目
+     */
+    RecentAppsTracker(@NonNull Executor mainExecutor, @NonNull Callback callback,
+            @NonNull UsageStatsManager usageStatsManager, @NonNull File file, int maxEntries) {
+        this(mainExecutor, callback, new UsageStatsManagerSource(usageStatsManager), file,
+                maxEntries, System::currentTimeMillis);
+    }
+
+    @VisibleForTesting
+    RecentAppsTracker(@NonNull Executor mainExecutor, @NonNull Callback callback,
+            @NonNull UsageSource usageSource, @NonNull File file, int maxEntries,
+            @NonNull LongSupplier clock) {
+        mMainExecutor = mainExecutor;
+        mCallback = callback;
+        mUsageSource = usageSource;
+        mFile = new AtomicFile(file);
+        mMaxEntries = maxEntries;
+        mClock = clock;
+    }
+
+    /** 在后台读取新事件，完成后在主线程上回调。 */
+    @MainThread
+    void refresh() {
+        mBackgroundExecutor.execute(() -> {
+            List<RecentApp> recentApps = update();
+            mMainExecutor.execute(() -> {
+                mRecentApps = recentApps;
+                mCallback.onRecentAppsChanged(recentApps);
+            });
+        });
+    }
+
+    /** 返回最近一次发布的列表，按最近使用时间降序排列。 */
+    @MainThread
+    @NonNull
+    List<RecentApp> getRecentApps() {
+        return mRecentApps;
+    }
+
+    @MainThread
+    void destroy() {
+        mBackgroundExecutor.shutdownNow();
+    }
+
+    /**
+     * 读取上一个检查点之后的事件并合并到前K个包中。
+     *
+     * @return 按最近使用时间降序排列的不可变列表
+     */
+    @WorkerThread
+    @VisibleForTesting
+    List<RecentApp> update() {
+        if (!mLoaded) {
+            mLoaded = true;
+            load();
+        }
+
+        long now = mClock.getAsLong();
+        if (mCheckpoint == 0 || now < mCheckpoint) {
+            // 没有检查点，或者时钟被回拨：检查点之后的事件已无法可靠获取，重新初始化
+            bootstrap(now);
+        } else {
+            for (UsageEvent event : mUsageSource.queryEvents(mCheckpoint, now)) {
+                mEventsProcessed++;
+                onEvent(event);
+            }
+        }
+        mCheckpoint = now;
+
+        List<RecentApp> recentApps = trim();
+        persist();
+        return recentApps;
+    }
+
+    void dump(@NonNull String prefix, @NonNull PrintWriter writer) {
+        writer.println(prefix + TAG + ": checkpoint=" + mCheckpoint
+                + ", entries=" + mEntries.size() + "/" + mMaxEntries
+                + ", eventsProcessed=" + mEventsProcessed);
+    }
+
+    private void onEvent(UsageEvent event) {
+        boolean foreground;
+        switch (event.mEventType) {
+            case UsageEvents.Event.ACTIVITY_RESUMED:
+                foreground = true;
+                break;
+            case UsageEvents.Event.ACTIVITY_PAUSED:
+            case UsageEvents.Event.ACTIVITY_STOPPED:
+                foreground = false;
+                break;
+            default:
+                return;
+        }
+        record(event.mPackageName, event.mTimeStamp, foreground);
+    }
+
+    private void bootstrap(long now) {
+        mEntries.clear();
+        // 年度统计可能为同一个包返回多个区间，逐条合并即可
+        for (PackageUsage usage : mUsageSource.queryYearlyUsage(
+                now - DateUtils.YEAR_IN_MILLIS, now)) {
+            record(usage.mPackageName, usage.mLastTimeUsed, usage.mTotalTimeInForeground > 0);
+        }
+    }
+
+    private void record(String packageName, long timeUsed, boolean foreground) {
+        RecentApp previous = mEntries.get(packageName);
+        if (previous == null) {
+            mEntries.put(packageName, new RecentApp(packageName, timeUsed, foreground));
+            return;
+        }
+        mEntries.put(packageName, new RecentApp(packageName,
+                Math.max(previous.mLastTimeUsed, timeUsed),
+                previous.mUsedInForeground || foreground));
+    }
+
+    /** 按时间降序排序，只保留前K个。 */
+    private List<RecentApp> trim() {
+        List<RecentApp> sorted = new ArrayList<>(mEntries.values());
+        sorted.sort((a, b) -> Long.compare(b.mLastTimeUsed, a.mLastTimeUsed));
+        if (sorted.size() > mMaxEntries) {
+            for (RecentApp evicted : sorted.subList(mMaxEntries, sorted.size())) {
+                mEntries.remove(evicted.mPackageName);
+            }
+            sorted = sorted.subList(0, mMaxEntries);
+        }
+        return Collections.unmodifiableList(new ArrayList<>(sorted));
+    }
+
+    private void load() {
+        try (DataInputStream in = new DataInputStream(
+                new BufferedInputStream(mFile.openRead()))) {
+            if (in.readInt() != MAGIC || in.readInt() != FORMAT_VERSION) {
+                return;
+            }
+            long checkpoint = in.readLong();
+            int count = in.readInt();
+            for (int i = 0; i < count; i++) {
+                RecentApp app = new RecentApp(in.readUTF(), in.readLong(), in.readBoolean());
+                mEntries.put(app.mPackageName, app);
+            }
+            mCheckpoint = checkpoint;
+        } catch (FileNotFoundException e) {
+            // 第一次运行，随后会用年度统计初始化
+        } catch (IOException e) {
+            Log.w(TAG, "Discarding unreadable recent apps state", e);
+            mEntries.clear();
+            mCheckpoint = 0;
+        }
+    }
+
+    private void persist() {
+        FileOutputStream fos = null;
+        try {
+            fos = mFile.startWrite();
+            DataOutputStream out = new DataOutputStream(new BufferedOutputStream(fos));
+            out.writeInt(MAGIC);
+            out.writeInt(FORMAT_VERSION);
+            out.writeLong(mCheckpoint);
+            out.writeInt(mEntries.size());
+            for (RecentApp app : mEntries.values()) {
+                out.writeUTF(app.mPackageName);
+                out.writeLong(app.mLastTimeUsed);
+                out.writeBoolean(app.mUsedInForeground);
+            }
+            out.flush();
+            mFile.finishWrite(fos);
+        } catch (IOException e) {
+            Log.w(TAG, "Failed to persist recent apps state", e);
+            mFile.failWrite(fos);
+        }
+    }
+
+    /** 从 {@link UsageStatsManager} 查询使用情况。 */
+    private static final class UsageStatsManagerSource implements UsageSource {
+        private final UsageStatsManager mUsageStatsManager;
+
+        UsageStatsManagerSource(UsageStatsManager usageStatsManager) {
+            mUsageStatsManager = usageStatsManager;
+        }
+
+        @NonNull
+        @Override
+        public List<UsageEvent> queryEvents(long beginTime, long endTime) {
+            UsageEvents events = mUsageStatsManager.queryEvents(beginTime, endTime);
+            if (events == null) {
+                return Collections.emptyList();
+            }
+            List<UsageEvent> result = new ArrayList<>();
+            UsageEvents.Event event = new UsageEvents.Event();
+            while (events.getNextEvent(event)) {
+                result.add(new UsageEvent(event.getPackageName(), event.getTimeStamp(),
+                        event.getEventType()));
+            }
+            return result;
+        }
+
+        @NonNull
+        @Override
+        public List<PackageUsage> queryYearlyUsage(long beginTime, long endTime) {
+            List<UsageStats> stats = mUsageStatsManager.queryUsageStats(
+                    UsageStatsManager.INTERVAL_YEARLY, beginTime, endTime);
+            if (stats == null) {
+                return Collections.emptyList();
+            }
+            List<PackageUsage> result = new ArrayList<>(stats.size());
+            for (UsageStats usageStats : stats) {
+                result.add(new PackageUsage(usageStats.getPackageName(),
+                        usageStats.getLastTimeUsed(), usageStats.getTotalTimeInForeground()));
+            }
+            return result;
+        }
+    }
+}
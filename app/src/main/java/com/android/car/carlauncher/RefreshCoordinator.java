@@ -0,0 +1,119 @@
+/*
+ * Copyright (C) 2022 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.car.carlauncher;
+
+import androidx.annotation.NonNull;
+
+import java.io.PrintWriter;
+
+/**
+ * 合并重复的完整扫描请求。
+ *
+ * <p>每个请求分配一个递增的代数。同一时间最多只有一次扫描在进行：扫描进行中到达的请求
+ * 合并为一次后续扫描，在当前扫描结束后以最新的代数开始；代数早于最新请求的扫描结果会被丢弃，
+ * 因为它可能是在触发新请求的变化发生之前读取的。
+ *
+ * <p>此类不是线程安全的，必须在同一个线程（通常是主线程）上使用。
+ */
+final class RefreshCoordinator {
+    private static final String TAG = "RefreshCoordinator";
+    private static final int NO_SCAN = -1;
+
+    /** 开始一次扫描，扫描结束后必须以相同的代数调用 {@link #onScanFinished}。 */
+    interface Scanner {
+        void startScan(int generation);
+    }
+
+    private final Scanner mScanner;
+
+    private int mLatestGeneration;
+    private int mInFlightGeneration = NO_SCAN;
+    private boolean mFollowUpPending;
+
+    private int mRequests;
+    private int mScansStarted;
+    private int mResultsDropped;
+
+    RefreshCoordinator(@NonNull Scanner scanner) {
+        mScanner = scanner;
+    }
+
+    /**
+     * 请求一次完整扫描。没有扫描在进行时立即开始；否则合并为当前扫描结束后的一次后续扫描。
+     *
+     * @return 分配给此请求的代数
+     */
+    int requestRefresh() {
+        mRequests++;
+        mLatestGeneration++;
+        if (mInFlightGeneration != NO_SCAN) {
+            mFollowUpPending = true;
+        } else {
+            start();
+        }
+        return mLatestGeneration;
+    }
+
+    /**
+     * 记录扫描结束，并在需要时开始合并后的后续扫描。
+     *
+     * @return 结果是否为最新请求的结果，为{@code false}时调用方应丢弃结果
+     */
+    boolean onScanFinished(int generation) {
+        if (generation != mInFlightGeneration) {
+            throw new IllegalStateException("Scan " + generation + " is not in flight");
+        }
+        mInFlightGeneration = NO_SCAN;
+        boolean isLatest = generation == mLatestGeneration;
+        if (!isLatest) {
+            mResultsDropped++;
+        }
+        if (mFollowUpPending) {
+            mFollowUpPending = false;
+            start();
+        }
+        return isLatest;
+    }
+
+    /** 返回最新请求的代数。 */
+    int getLatestGeneration() {
+        return mLatestGeneration;
+    }
+
+    /** 如果有扫描正在进行，则返回{@code true}。 */
+    boolean isRefreshing() {
+        return mInFlightGeneration != NO_SCAN;
+    }
+
+    /** 返回因合并而没有执行的扫描次数。 */
+    int getAvoidedScans() {
+        return mRequests - mScansStarted;
+    }
+
+    void dump(@NonNull String prefix, @NonNull PrintWriter writer) {
+        writer.println(prefix + TAG + ": generation=" + mLatestGeneration
+                + ", inFlight=" + isRefreshing() + ", requests=" + mRequests
+                + ", scansStarted=" + mScansStarted + ", avoidedScans=" + getAvoidedScans()
+                + ", resultsDropped=" + mResultsDropped);
+    }
+
+    private void start() {
+        mScansStarted++;
+        mInFlightGeneration = mLatestGeneration;
+        mScanner.startScan(mInFlightGeneration);
+    }
+}
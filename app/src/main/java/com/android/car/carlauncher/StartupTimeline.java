@@ -0,0 +1,176 @@
+/*
+ * Copyright (C) 2022 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.car.carlauncher;
+
+import android.os.SystemClock;
+import android.os.Trace;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.VisibleForTesting;
+
+import com.android.car.carlauncher.homescreen.HomeCardModule;
+
+import java.io.PrintWriter;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * 记录 {@link CarLauncher} 启动过程中各阶段的时间线。
+ *
+ * <p>每个阶段同时输出为 {@link Trace} 区段，便于在systrace/perfetto中查看，并记录单调时钟的
+ * 开始和结束时间，通过dumpsys输出汇总，以便比较每个版本中哪个阶段变慢。
+ *
+ * <p>每次启动中同名阶段只记录第一次，之后重复的阶段仍然输出Trace区段，但不改变时间线。
+ * 同步区段必须在同一线程上按嵌套顺序开始和结束；跨回调的阶段使用异步区段。
+ *
+ * <p>此类是线程安全的。
+ */
+public final class StartupTimeline {
+    public static final String PHASE_ON_CREATE = "onCreate";
+    public static final String PHASE_SET_CONTENT_VIEW = "setContentView";
+    public static final String PHASE_INIT_WM_SHELL = "initWmShell";
+    public static final String PHASE_TASK_VIEW_INITIALIZED = "taskViewInitialized";
+    public static final String PHASE_START_MAPS = "startMapsActivity";
+    public static final String PHASE_INIT_CARDS = "initializeCards";
+    /** 加上 {@link HomeCardModule} 的类名，记录每个模块的初始化。 */
+    public static final String PHASE_INIT_CARD_PREFIX = "initCard:";
+    /** 从模块创建完成到所有模型在工作线程上准备完成。 */
+    public static final String PHASE_PREPARE_CARDS = "prepareCards";
+    /** 模型准备完成并添加了卡片的视图，即卡片就绪。 */
+    public static final String EVENT_CARDS_READY = "cardsReady";
+    public static final String EVENT_FIRST_CARD_BIND = "firstCardBind";
+
+    private static final String TAG = "StartupTimeline";
+    private static final String TRACE_PREFIX = "CarLauncher#";
+    private static final int ASYNC_TRACE_COOKIE = 0;
+    private static final long NOT_ENDED = -1;
+
+    private static final StartupTimeline sInstance = new StartupTimeline();
+
+    // 按开始顺序排列
+    private final Map<String, Phase> mPhases = new LinkedHashMap<>();
+    private long mStartNanos = SystemClock.elapsedRealtimeNanos();
+
+    @NonNull
+    public static StartupTimeline getInstance() {
+        return sInstance;
+    }
+
+    @VisibleForTesting
+    StartupTimeline() {
+    }
+
+    /** 开始新的一次启动，清除之前的时间线。之后的时间都相对于此时。 */
+    public synchronized void start() {
+        mPhases.clear();
+        mStartNanos = now();
+    }
+
+    /** 开始一个同步阶段，必须在同一线程上以相同的名称调用 {@link #endSection}。 */
+    public void beginSection(@NonNull String name) {
+        Trace.beginSection(TRACE_PREFIX + name);
+        begin(name);
+    }
+
+    public void endSection(@NonNull String name) {
+        end(name);
+        Trace.endSection();
+    }
+
+    /** 开始一个跨回调的阶段，可以在任意线程上以相同的名称调用 {@link #endAsyncSection}。 */
+    public void beginAsyncSection(@NonNull String name) {
+        Trace.beginAsyncSection(TRACE_PREFIX + name, ASYNC_TRACE_COOKIE);
+        begin(name);
+    }
+
+    public void endAsyncSection(@NonNull String name) {
+        end(name);
+        Trace.endAsyncSection(TRACE_PREFIX + name, ASYNC_TRACE_COOKIE);
+    }
+
+    /** 记录一个瞬时事件，例如第一次绑定卡片内容。 */
+    public synchronized void mark(@NonNull String name) {
+        if (mPhases.containsKey(name)) {
+            return;
+        }
+        long now = now();
+        mPhases.put(name, new Phase(name, now, now));
+        // 只有第一次才输出，重复的事件没有意义
+        Trace.beginSection(TRACE_PREFIX + name);
+        Trace.endSection();
+    }
+
+    /** 返回已经结束的阶段，按开始顺序排列。 */
+    @VisibleForTesting
+    synchronized List<String> getCompletedPhases() {
+        List<String> names = new ArrayList<>();
+        for (Phase phase : mPhases.values()) {
+            if (phase.mEndNanos != NOT_ENDED) {
+                names.add(phase.mName);
+            }
+        }
+        return names;
+    }
+
+    synchronized void dump(@NonNull String prefix, @NonNull PrintWriter writer) {
+        writer.println(prefix + TAG + ": phases=" + mPhases.size()
+                + " (start and duration in ms since CarLauncher.onCreate)");
+        for (Phase phase : mPhases.values()) {
+            String duration = phase.mEndNanos == NOT_ENDED
+                    ? "running"
+                    : formatMillis(phase.mEndNanos - phase.mStartNanos);
+            writer.println(prefix + "  " + String.format(Locale.US, "%-48s start=%9s duration=%9s",
+                    phase.mName, formatMillis(phase.mStartNanos - mStartNanos), duration));
+        }
+    }
+
+    private synchronized void begin(String name) {
+        if (!mPhases.containsKey(name)) {
+            mPhases.put(name, new Phase(name, now(), NOT_ENDED));
+        }
+    }
+
+    private synchronized void end(String name) {
+        Phase phase = mPhases.get(name);
+        if (phase != null && phase.mEndNanos == NOT_ENDED) {
+            phase.mEndNanos = now();
+        }
+    }
+
+    private static long now() {
+        return SystemClock.elapsedRealtimeNanos();
+    }
+
+    private static String formatMillis(long nanos) {
+        return String.format(Locale.US, "%.1f", nanos / 1_000_000f);
+    }
+
+    private static final class Phase {
+        final String mName;
+        final long mStartNanos;
+        long mEndNanos;
+
+        Phase(String name, long startNanos, long endNanos) {
+            mName = name;
+            mStartNanos = startNanos;
+            mEndNanos = endNanos;
+        }
+    }
+}
@@ -52,7 +52,9 @@ public final class TaskViewManager {
     public TaskViewManager(@UiContext Context context, HandlerExecutor handlerExecutor) {
         mContext = context;
         mExecutor = handlerExecutor;
+        StartupTimeline.getInstance().beginSection(StartupTimeline.PHASE_INIT_WM_SHELL);
         mTaskViewFactory = initWmShell();
+        StartupTimeline.getInstance().endSection(StartupTimeline.PHASE_INIT_WM_SHELL);
     }
 
     private TaskViewFactory initWmShell() {
@@ -16,30 +16,203 @@
 
 package com.android.car.carlauncher.homescreen;
 
+import android.os.Handler;
+import android.os.Looper;
+import android.view.Choreographer;
+
+import androidx.annotation.CallSuper;
+import androidx.annotation.GuardedBy;
+import androidx.annotation.NonNull;
+import androidx.annotation.VisibleForTesting;
 import androidx.fragment.app.Fragment;
 
+import com.android.car.carlauncher.homescreen.ui.CardContent;
+import com.android.car.carlauncher.homescreen.ui.CardHeader;
+
+import java.io.PrintWriter;
+import java.util.Collections;
+import java.util.List;
+
 /**
  * 主屏幕上卡片演示者的抽象类。
+ *
+ * <p>模型的更新不立即交给视图，而是合并到下一帧：同一帧内只保留最新的标题和内容，
+ * 在 {@link Choreographer} 的帧回调中一次应用，避免频繁更新的来源（如媒体元数据、投影状态）
+ * 在一帧内引起多次重新布局。
  */
 public abstract class CardPresenter implements HomeCardInterface.Presenter {
 
+    /** 安排在下一帧的主线程上运行。 */
+    @VisibleForTesting
+    public interface FrameScheduler {
+        void scheduleFrame(@NonNull Runnable frame);
+
+        /** 取消尚未运行的帧，只在主线程上调用。 */
+        default void cancelFrame(@NonNull Runnable frame) {
+        }
+    }
+
+    /**
+     * 在 {@link Choreographer} 上安排帧回调。每个演示者一个实例，总是安排同一个帧，
+     * 所以可以持有对应的回调并在视图销毁时移除。
+     */
+    private static final class ChoreographerFrameScheduler implements FrameScheduler {
+        private volatile Runnable mFrame;
+        @GuardedBy("this")
+        private Handler mMainHandler;
+        private final Choreographer.FrameCallback mFrameCallback = frameTimeNanos -> {
+            Runnable frame = mFrame;
+            if (frame != null) {
+                frame.run();
+            }
+        };
+        // Choreographer是线程本地的，必须在主线程上获取
+        private final Runnable mPostFrameCallback =
+                () -> Choreographer.getInstance().postFrameCallback(mFrameCallback);
+
+        @Override
+        public void scheduleFrame(@NonNull Runnable frame) {
+            mFrame = frame;
+            if (Looper.myLooper() == Looper.getMainLooper()) {
+                mPostFrameCallback.run();
+            } else {
+                getMainHandler().post(mPostFrameCallback);
+            }
+        }
+
+        @Override
+        public void cancelFrame(@NonNull Runnable frame) {
+            getMainHandler().removeCallbacks(mPostFrameCallback);
+            Choreographer.getInstance().removeFrameCallback(mFrameCallback);
+        }
+
+        // 只有从其他线程安排帧时才需要处理器，延迟创建
+        private synchronized Handler getMainHandler() {
+            if (mMainHandler == null) {
+                mMainHandler = new Handler(Looper.getMainLooper());
+            }
+            return mMainHandler;
+        }
+    }
+
     private HomeCardInterface.View mView;
+    private FrameScheduler mFrameScheduler = new ChoreographerFrameScheduler();
+    private final Runnable mRenderFrame = this::renderFrame;
+
+    // 模型可能在任意线程上更新，等待下一帧应用的状态由锁保护
+    private final Object mLock = new Object();
+    @GuardedBy("mLock")
+    private boolean mFrameScheduled;
+    // 这一帧内是否要隐藏卡片；之后的更新仍然在隐藏之后应用，与逐个应用的结果相同
+    @GuardedBy("mLock")
+    private boolean mPendingHide;
+    @GuardedBy("mLock")
+    private CardHeader mPendingHeader;
+    @GuardedBy("mLock")
+    private CardContent mPendingContent;
+    @GuardedBy("mLock")
+    private int mUpdatesReceived;
+    @GuardedBy("mLock")
+    private int mFramesRendered;
 
     @Override
     public void setView(HomeCardInterface.View view) {
         mView = view;
     }
 
+    /** 替换帧调度器，测试中使用立即运行的调度器。 */
+    @VisibleForTesting
+    public void setFrameScheduler(@NonNull FrameScheduler frameScheduler) {
+        mFrameScheduler = frameScheduler;
+    }
+
     @Override
     public void onModelUpdated(HomeCardInterface.Model model) {
-        if (model != null && model.getCardHeader() != null) {
-            mView.updateHeaderView(model.getCardHeader());
-            if (model.getCardContent() != null) {
-                mView.updateContentView(model.getCardContent());
+        CardHeader header = model != null ? model.getCardHeader() : null;
+        CardContent content = header != null ? model.getCardContent() : null;
+        synchronized (mLock) {
+            mUpdatesReceived++;
+            if (header == null) {
+                mPendingHide = true;
+                mPendingHeader = null;
+                mPendingContent = null;
+            } else {
+                mPendingHeader = header;
+                // 只有标题的更新不改变内容，保留这一帧中之前的内容
+                if (content != null) {
+                    mPendingContent = content;
+                }
+            }
+            if (mFrameScheduled) {
+                return;
             }
-        } else {
+            mFrameScheduled = true;
+        }
+        mFrameScheduler.scheduleFrame(mRenderFrame);
+    }
+
+    /**
+     * 在视图被破坏时调用。取消还没有应用的帧并丢弃等待的状态，子类必须调用此方法。
+     */
+    @CallSuper
+    @Override
+    public void onViewDestroyed() {
+        mFrameScheduler.cancelFrame(mRenderFrame);
+        synchronized (mLock) {
+            mPendingHide = false;
+            mPendingHeader = null;
+            mPendingContent = null;
+            mFrameScheduled = false;
+        }
+    }
+
+    private void renderFrame() {
+        boolean hide;
+        CardHeader header;
+        CardContent content;
+        synchronized (mLock) {
+            hide = mPendingHide;
+            header = mPendingHeader;
+            content = mPendingContent;
+            mPendingHide = false;
+            mPendingHeader = null;
+            mPendingContent = null;
+            mFrameScheduled = false;
+        }
+        if (!hide && header == null) {
+            return;
+        }
+        // 帧可能在片段移除之后才运行，这时视图已经不能更新
+        Fragment fragment = mView != null ? mView.getFragment() : null;
+        if (fragment == null || !fragment.isAdded()) {
+            return;
+        }
+        synchronized (mLock) {
+            mFramesRendered++;
+        }
+        if (hide) {
             mView.hideCard();
         }
+        if (header != null) {
+            mView.updateHeaderView(header);
+            if (content != null) {
+                mView.updateContentView(content);
+            }
+        }
+    }
+
+    public void dump(@NonNull String prefix, @NonNull PrintWriter writer) {
+        synchronized (mLock) {
+            writer.println(prefix + getClass().getSimpleName() + ": updatesReceived="
+                    + mUpdatesReceived + ", framesRendered=" + mFramesRendered);
+        }
+    }
+
+    /**
+     * 返回演示者的模型，用于在视图创建之前准备模型。
+     */
+    public List<HomeCardInterface.Model> getModels() {
+        return Collections.emptyList();
     }
 
     public Fragment getFragment() {
@@ -0,0 +1,119 @@
+/*
+ * Copyright (C) 2022 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.car.carlauncher.homescreen;
+
+import android.content.Context;
+import android.os.Process;
+import android.util.Log;
+
+import androidx.annotation.MainThread;
+import androidx.annotation.NonNull;
+import androidx.annotation.VisibleForTesting;
+
+import com.android.car.carlauncher.StartupTimeline;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.Executor;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 在工作线程池上并行准备主屏卡片的模型。
+ *
+ * <p>各模型的 {@link HomeCardInterface.Model#onPrepare} 互不依赖，同时在工作线程上运行，
+ * 加载图标、标签等资源；全部完成后才在主线程上回调，由调用方添加卡片的视图。之后视图创建时
+ * 在主线程调用的 {@link HomeCardInterface.Model#onCreate} 只需要完成必须在主线程上进行的部分。
+ */
+public final class HomeCardBootstrap {
+    private static final String TAG = "HomeCardBootstrap";
+    private static final int MAX_WORKER_COUNT = 4;
+    private static final long WORKER_KEEP_ALIVE_SECONDS = 1;
+    private static final String TRACE_PREFIX = "prepareModel:";
+
+    // 只在启动时使用，空闲后线程退出
+    private static final ThreadPoolExecutor sWorkerPool = createWorkerPool();
+
+    private final Executor mWorkerExecutor;
+    private final Executor mMainExecutor;
+
+    public HomeCardBootstrap(@NonNull Executor mainExecutor) {
+        this(sWorkerPool, mainExecutor);
+    }
+
+    @VisibleForTesting
+    HomeCardBootstrap(@NonNull Executor workerExecutor, @NonNull Executor mainExecutor) {
+        mWorkerExecutor = workerExecutor;
+        mMainExecutor = mainExecutor;
+    }
+
+    /**
+     * 并行准备所有模块的模型，全部完成后在主线程上运行{@code onPrepared}。
+     * 模块的演示者和模型在调用线程上创建，因此必须在主线程调用。
+     */
+    @MainThread
+    public void prepare(@NonNull Context context, @NonNull Collection<HomeCardModule> modules,
+            @NonNull Runnable onPrepared) {
+        List<HomeCardInterface.Model> models = new ArrayList<>();
+        for (HomeCardModule module : modules) {
+            models.addAll(module.getCardPresenter().getModels());
+        }
+        if (models.isEmpty()) {
+            mMainExecutor.execute(onPrepared);
+            return;
+        }
+        AtomicInteger remaining = new AtomicInteger(models.size());
+        for (HomeCardInterface.Model model : models) {
+            mWorkerExecutor.execute(() -> {
+                prepareModel(context, model);
+                // 最后一个完成的模型负责回到主线程
+                if (remaining.decrementAndGet() == 0) {
+                    mMainExecutor.execute(onPrepared);
+                }
+            });
+        }
+    }
+
+    private static void prepareModel(Context context, HomeCardInterface.Model model) {
+        String phase = TRACE_PREFIX + model.getClass().getSimpleName();
+        StartupTimeline.getInstance().beginSection(phase);
+        try {
+            model.onPrepare(context);
+        } catch (RuntimeException e) {
+            // 没有准备好的模型在onCreate中自己在主线程上准备
+            Log.w(TAG, "Failed to prepare " + model.getClass().getName(), e);
+        } finally {
+            StartupTimeline.getInstance().endSection(phase);
+        }
+    }
+
+    private static ThreadPoolExecutor createWorkerPool() {
+        int workerCount = Math.min(MAX_WORKER_COUNT, Runtime.getRuntime().availableProcessors());
+        ThreadPoolExecutor pool = new ThreadPoolExecutor(workerCount, workerCount,
+                WORKER_KEEP_ALIVE_SECONDS, TimeUnit.SECONDS, new LinkedBlockingQueue<>(),
+                runnable -> new Thread(() -> {
+                    // 卡片内容在启动的关键路径上，不使用后台优先级
+                    Process.setThreadPriority(Process.THREAD_PRIORITY_DEFAULT);
+                    runnable.run();
+                }, TAG));
+        pool.allowCoreThreadTimeOut(true);
+        return pool;
+    }
+}
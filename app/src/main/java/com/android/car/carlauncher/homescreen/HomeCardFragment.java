@@ -16,9 +16,16 @@
 
 package com.android.car.carlauncher.homescreen;
 
+import android.content.Context;
+import android.content.res.Configuration;
+import android.content.res.TypedArray;
+import android.graphics.Color;
 import android.graphics.drawable.Drawable;
 import android.os.Bundle;
+import android.text.TextUtils;
+import android.util.Log;
 import android.util.Size;
+import android.util.TypedValue;
 import android.view.LayoutInflater;
 import android.view.View;
 import android.view.ViewGroup;
@@ -27,10 +34,16 @@ import android.widget.ImageButton;
 import android.widget.ImageView;
 import android.widget.TextView;
 
+import androidx.annotation.CallSuper;
+import androidx.annotation.LayoutRes;
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import androidx.cardview.widget.CardView;
 import androidx.fragment.app.Fragment;
 
 import com.android.car.apps.common.CrossfadeImageView;
 import com.android.car.carlauncher.R;
+import com.android.car.carlauncher.StartupTimeline;
 import com.android.car.carlauncher.homescreen.ui.CardContent;
 import com.android.car.carlauncher.homescreen.ui.CardHeader;
 import com.android.car.carlauncher.homescreen.ui.DescriptiveTextView;
@@ -57,6 +70,16 @@ public class HomeCardFragment extends Fragment implements HomeCardInterface.View
     private TextView mCardTitle;
     private ImageView mCardIcon;
 
+    // 最后显示的标题和内容，主题变化后用于重新显示
+    @Nullable
+    private CardHeader mLastHeader;
+    @Nullable
+    private CardContent mLastContent;
+    // 当前显示内容所用的布局，布局不变时不先隐藏再显示，避免可见性来回切换引起重新布局
+    @Nullable
+    private Object mBoundLayout;
+    private int mUiMode;
+
     // 来自的视图 card_content_text_block.xml
     private View mTextBlockLayoutView;
     private TextView mTextBlock;
@@ -90,16 +113,44 @@ public class HomeCardFragment extends Fragment implements HomeCardInterface.View
         mRootView = inflater.inflate(R.layout.card_fragment, container, false);
         mCardTitle = mRootView.findViewById(R.id.card_name);
         mCardIcon = mRootView.findViewById(R.id.card_icon);
+        mUiMode = getResources().getConfiguration().uiMode;
         return mRootView;
     }
 
     @Override
     public void onViewCreated(View view, Bundle savedInstanceState) {
         super.onViewCreated(view, savedInstanceState);
+        if (mPresenter == null) {
+            // 片段管理器恢复的片段还没有演示者，保持空卡片，等待活动重新添加卡片
+            Log.w(TAG, "onViewCreated without a presenter");
+            return;
+        }
         mPresenter.onViewCreated();
         mRootView.setOnClickListener(v -> mPresenter.onViewClicked(v));
     }
 
+    /**
+     * 日夜模式切换时不重建片段，演示者和模型保持不变，只重新解析主题相关的资源并重新显示
+     * 最后的内容。
+     */
+    @Override
+    public void onConfigurationChanged(@NonNull Configuration newConfig) {
+        super.onConfigurationChanged(newConfig);
+        if (mRootView == null || newConfig.uiMode == mUiMode) {
+            return;
+        }
+        mUiMode = newConfig.uiMode;
+        applyThemedResources();
+        onDiscardThemedViews();
+        mBoundLayout = null;
+        if (mLastHeader != null) {
+            bindHeader(mLastHeader);
+        }
+        if (mLastContent != null) {
+            bindContent(mLastContent);
+        }
+    }
+
     @Override
     public void onDestroy() {
         super.onDestroy();
@@ -129,28 +180,57 @@ public class HomeCardFragment extends Fragment implements HomeCardInterface.View
      */
     @Override
     public void hideCard() {
+        mLastHeader = null;
+        mLastContent = null;
+        mBoundLayout = null;
         hideAllViews();
         mRootView.setVisibility(View.GONE);
     }
 
     /**
-     * 更新卡片标题：源应用程序的名称和图标
+     * 更新卡片标题：源应用程序的名称和图标。演示者在主线程的帧回调中调用
      */
     @Override
     public void updateHeaderView(CardHeader header) {
-        requireActivity().runOnUiThread(() -> {
-            mRootView.setVisibility(View.VISIBLE);
-            mCardTitle.setText(header.getCardTitle());
-            mCardIcon.setImageDrawable(header.getCardIcon());
-        });
+        // 内容类型可以比较，没有变化时不触碰任何视图，也就不会请求布局
+        if (header.equals(mLastHeader) && mRootView.getVisibility() == View.VISIBLE) {
+            return;
+        }
+        mLastHeader = header;
+        bindHeader(header);
     }
 
     @Override
     public final void updateContentView(CardContent content) {
-        requireActivity().runOnUiThread(() -> {
+        if (content.equals(mLastContent)) {
+            return;
+        }
+        mLastContent = content;
+        bindContent(content);
+        StartupTimeline.getInstance().mark(StartupTimeline.EVENT_FIRST_CARD_BIND);
+    }
+
+    private void bindHeader(CardHeader header) {
+        mRootView.setVisibility(View.VISIBLE);
+        setTextIfChanged(mCardTitle, header.getCardTitle());
+        mCardIcon.setImageDrawable(header.getCardIcon());
+    }
+
+    private void bindContent(CardContent content) {
+        Object layout = getContentLayout(content);
+        if (!layout.equals(mBoundLayout)) {
             hideAllViews();
-            updateContentViewInternal(content);
-        });
+            mBoundLayout = layout;
+        }
+        updateContentViewInternal(content);
+    }
+
+    /**
+     * 返回显示内容所用的布局的键，默认为内容类型。同一类型可能使用不同布局的子类需要重写此方法
+     */
+    @NonNull
+    protected Object getContentLayout(CardContent content) {
+        return content.getType();
     }
 
     /**
@@ -185,12 +265,12 @@ public class HomeCardFragment extends Fragment implements HomeCardInterface.View
     protected final void updateDescriptiveTextOnlyView(CharSequence primaryText,
             CharSequence secondaryText, Drawable optionalImage, CharSequence tapForMoreText) {
         getDescriptiveTextOnlyLayoutView().setVisibility(View.VISIBLE);
-        mDescriptiveTextOnlyTitle.setText(primaryText);
-        mDescriptiveTextOnlySubtitle.setText(secondaryText);
+        setTextIfChanged(mDescriptiveTextOnlyTitle, primaryText);
+        setTextIfChanged(mDescriptiveTextOnlySubtitle, secondaryText);
         mDescriptiveTextOnlyOptionalImage.setImageDrawable(optionalImage);
         mDescriptiveTextOnlyOptionalImage.setVisibility(
                 optionalImage == null ? View.GONE : View.VISIBLE);
-        mDescriptiveTextOnlyTapForMore.setText(tapForMoreText);
+        setTextIfChanged(mDescriptiveTextOnlyTapForMore, tapForMoreText);
         mDescriptiveTextOnlyTapForMore.setVisibility(
                 tapForMoreText == null ? View.GONE : View.VISIBLE);
     }
@@ -201,8 +281,8 @@ public class HomeCardFragment extends Fragment implements HomeCardInterface.View
             DescriptiveTextWithControlsView.Control centerButton,
             DescriptiveTextWithControlsView.Control rightButton) {
         getDescriptiveTextWithControlsLayoutView().setVisibility(View.VISIBLE);
-        mDescriptiveTextWithControlsTitle.setText(primaryText);
-        mDescriptiveTextWithControlsSubtitle.setText(secondaryText);
+        setTextIfChanged(mDescriptiveTextWithControlsTitle, primaryText);
+        setTextIfChanged(mDescriptiveTextWithControlsSubtitle, secondaryText);
         mDescriptiveTextWithControlsOptionalImage.setImageDrawable(optionalImage);
         mDescriptiveTextWithControlsOptionalImage.setVisibility(
                 optionalImage == null ? View.GONE : View.VISIBLE);
@@ -225,11 +305,93 @@ public class HomeCardFragment extends Fragment implements HomeCardInterface.View
 
     protected final void updateTextBlock(CharSequence mainText, CharSequence tapForMoreText) {
         getTextBlockLayoutView().setVisibility(View.VISIBLE);
-        mTextBlock.setText(mainText);
-        mTextBlockTapForMore.setText(tapForMoreText);
+        setTextIfChanged(mTextBlock, mainText);
+        setTextIfChanged(mTextBlockTapForMore, tapForMoreText);
         mTextBlockTapForMore.setVisibility(tapForMoreText == null ? View.GONE : View.VISIBLE);
     }
 
+    /**
+     * 只有文本内容变化时才调用 {@link TextView#setText}，因为即使文本相同它也会请求布局。
+     * {@link ImageView#setImageDrawable} 和 {@link View#setVisibility} 在值不变时本身不做任何事。
+     */
+    protected static void setTextIfChanged(TextView view, CharSequence text) {
+        // TextView把null显示为空字符串
+        if (!TextUtils.equals(view.getText(), text == null ? "" : text)) {
+            view.setText(text);
+        }
+    }
+
+    /**
+     * 主题变化后丢弃已经填充的内容布局，下次显示时按新的主题重新填充。
+     * 子类如果缓存了自己填充的视图，应重写此方法一并丢弃。
+     */
+    @CallSuper
+    protected void onDiscardThemedViews() {
+        replaceWithViewStub(mTextBlockLayoutView, R.layout.card_content_text_block);
+        mTextBlockLayoutView = null;
+        replaceWithViewStub(mDescriptiveTextOnlyLayoutView,
+                R.layout.card_content_descriptive_text_only);
+        mDescriptiveTextOnlyLayoutView = null;
+        replaceWithViewStub(mDescriptiveTextWithControlsLayoutView,
+                R.layout.card_content_descriptive_text_with_controls);
+        mDescriptiveTextWithControlsLayoutView = null;
+    }
+
+    /**
+     * 用一个新的 {@link ViewStub} 替换已经填充的布局，ID和布局参数保持不变。
+     * 布局尚未填充时不做任何事。
+     */
+    protected final void replaceWithViewStub(@Nullable View inflatedView,
+            @LayoutRes int layoutResId) {
+        if (inflatedView == null) {
+            return;
+        }
+        ViewGroup parent = (ViewGroup) inflatedView.getParent();
+        int index = parent.indexOfChild(inflatedView);
+        ViewStub stub = new ViewStub(requireContext(), layoutResId);
+        stub.setId(inflatedView.getId());
+        stub.setInflatedId(inflatedView.getId());
+        parent.removeViewAt(index);
+        parent.addView(stub, index, inflatedView.getLayoutParams());
+    }
+
+    /** 重新解析卡片本身使用的主题资源。 */
+    private void applyThemedResources() {
+        Context context = requireContext();
+        ((CardView) mRootView).setCardBackgroundColor(resolveCardBackgroundColor(context));
+        getCardBackground().findViewById(R.id.card_background_scrim).setBackgroundColor(
+                context.getColor(R.color.card_background_scrim));
+        TypedValue textAppearance = new TypedValue();
+        if (context.getTheme().resolveAttribute(android.R.attr.textAppearanceSmall,
+                textAppearance, /* resolveRefs= */ true)) {
+            mCardTitle.setTextAppearance(textAppearance.resourceId);
+        }
+    }
+
+    /** 与 {@link CardView} 构造时的规则相同：样式没有指定背景色时按主题的背景亮度选择。 */
+    private static int resolveCardBackgroundColor(Context context) {
+        TypedArray style = context.obtainStyledAttributes(R.style.CardViewStyle,
+                new int[]{R.attr.cardBackgroundColor});
+        try {
+            if (style.hasValue(0)) {
+                return style.getColor(0, Color.TRANSPARENT);
+            }
+        } finally {
+            style.recycle();
+        }
+        TypedArray theme = context.obtainStyledAttributes(
+                new int[]{android.R.attr.colorBackground});
+        float[] hsv = new float[3];
+        try {
+            Color.colorToHSV(theme.getColor(0, Color.TRANSPARENT), hsv);
+        } finally {
+            theme.recycle();
+        }
+        return context.getColor(hsv[2] > 0.5f
+                ? R.color.cardview_light_background
+                : R.color.cardview_dark_background);
+    }
+
     protected void hideAllViews() {
         getTextBlockLayoutView().setVisibility(View.GONE);
         getDescriptiveTextOnlyLayoutView().setVisibility(View.GONE);
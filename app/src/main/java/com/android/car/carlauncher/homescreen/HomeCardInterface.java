@@ -135,6 +135,13 @@ public interface HomeCardInterface {
          */
         void setPresenter(Presenter presenter);
 
+        /**
+         * 在视图创建之前由 {@link HomeCardBootstrap} 在工作线程上调用，与其他模型并行加载
+         * 不需要主线程的资源，例如图标和标签。不保证会被调用，{@link #onCreate} 必须能处理
+         * 没有准备过的情况。
+         */
+        default void onPrepare(Context context) {};
+
         /**
          * 由演示者调用以在创建视图时创建模型。
          * 应在使用setPresenter设置模型的Presenter后调用
@@ -0,0 +1,87 @@
+/*
+ * Copyright (C) 2022 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.car.carlauncher.homescreen;
+
+import android.util.ArrayMap;
+import android.util.Log;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import com.android.car.carlauncher.homescreen.assistive.AssistiveCard;
+import com.android.car.carlauncher.homescreen.audio.AudioCard;
+
+import java.lang.reflect.InvocationTargetException;
+import java.util.Map;
+
+/**
+ * 按 {@code R.array.config_homeCardModuleClasses} 中的类名创建 {@link HomeCardModule}。
+ *
+ * <p>启动器自带的模块在这里静态注册为工厂，创建时直接调用构造函数，不需要在启动的关键路径上
+ * 通过反射加载类。OEM覆盖配置中的其他类名仍然通过反射创建。
+ */
+public final class HomeCardModuleRegistry {
+    private static final String TAG = "HomeCardModuleRegistry";
+
+    /** 创建一个新的模块实例。 */
+    interface Factory {
+        @NonNull
+        HomeCardModule create();
+    }
+
+    private static final Map<String, Factory> FACTORIES = new ArrayMap<>();
+
+    static {
+        // 新增自带的模块时也要在这里注册，否则会退回到反射
+        register(AssistiveCard.class.getName(), AssistiveCard::new);
+        register(AudioCard.class.getName(), AudioCard::new);
+    }
+
+    private HomeCardModuleRegistry() {
+    }
+
+    /**
+     * 创建类名对应的模块。已注册的类名直接调用工厂，其他类名通过反射调用无参构造函数。
+     *
+     * @return 新的模块；类不存在或无法实例化时为{@code null}
+     */
+    @Nullable
+    public static HomeCardModule create(@NonNull String className) {
+        Factory factory = FACTORIES.get(className);
+        if (factory != null) {
+            return factory.create();
+        }
+        Log.i(TAG, "No registered factory for " + className + ", falling back to reflection");
+        try {
+            return (HomeCardModule) Class.forName(className).getDeclaredConstructor()
+                    .newInstance();
+        } catch (ClassNotFoundException | NoSuchMethodException | IllegalAccessException
+                | InstantiationException | InvocationTargetException | ClassCastException e) {
+            Log.w(TAG, "无法创建HomeCardModule类 " + className, e);
+            return null;
+        }
+    }
+
+    /** 如果类名已静态注册，即创建时不需要反射，则返回{@code true}。 */
+    public static boolean isRegistered(@NonNull String className) {
+        return FACTORIES.containsKey(className);
+    }
+
+    private static void register(String className, Factory factory) {
+        FACTORIES.put(className, factory);
+    }
+}
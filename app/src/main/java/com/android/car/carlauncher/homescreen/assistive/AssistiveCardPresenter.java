@@ -21,6 +21,7 @@ import android.view.View;
 import com.android.car.carlauncher.homescreen.CardPresenter;
 import com.android.car.carlauncher.homescreen.HomeCardInterface;
 
+import java.util.Collections;
 import java.util.List;
 
 /**
@@ -36,6 +37,11 @@ public class AssistiveCardPresenter extends CardPresenter {
         mModels = models;
     }
 
+    @Override
+    public List<HomeCardInterface.Model> getModels() {
+        return mModels == null ? Collections.emptyList() : mModels;
+    }
+
     /**
      * 创建视图时调用
      */
@@ -52,6 +58,7 @@ public class AssistiveCardPresenter extends CardPresenter {
      */
     @Override
     public void onViewDestroyed() {
+        super.onViewDestroyed();
         if (mModels != null) {
             for (HomeCardInterface.Model model : mModels) {
                 model.onDestroy(getFragment().requireContext());
@@ -33,9 +33,11 @@ public class FakeWeatherModel implements HomeCardInterface.Model {
     private HomeCardInterface.Presenter mPresenter;
     private CardHeader mCardHeader;
     private DescriptiveTextView mCardContent;
+    // 在onPrepare中加载，可能在工作线程上
+    private boolean mPrepared;
 
     @Override
-    public void onCreate(Context context) {
+    public void onPrepare(Context context) {
         mCardHeader = new CardHeader(context.getString(R.string.weather_app_name),
                 context.getDrawable(R.drawable.ic_partly_cloudy));
         mCardContent = new DescriptiveTextView(
@@ -43,6 +45,16 @@ public class FakeWeatherModel implements HomeCardInterface.Model {
                 /* title= */ context.getString(R.string.fake_weather_main_text),
                 /* subtitle= */ null,
                 /* footer= */ context.getString(R.string.fake_weather_footer_text));
+        mPrepared = true;
+    }
+
+    @Override
+    public void onCreate(Context context) {
+        // 准备好的内容只使用一次，之后重新创建时按当前配置重新加载
+        if (!mPrepared) {
+            onPrepare(context);
+        }
+        mPrepared = false;
         mPresenter.onModelUpdated(this);
     }
 
@@ -30,6 +30,9 @@ import android.util.Log;
 import android.view.View;
 import android.widget.Toast;
 
+import androidx.annotation.NonNull;
+
+import com.android.car.carlauncher.CarConnectionManager;
 import com.android.car.carlauncher.homescreen.HomeCardInterface;
 import com.android.car.carlauncher.R;
 import com.android.car.carlauncher.homescreen.ui.CardContent;
@@ -42,15 +45,17 @@ import java.util.List;
  * 投影状态的｛@link HomeCardInterface.Model｝
  */
 public class ProjectionModel implements CarProjectionManager.ProjectionStatusListener,
-        HomeCardInterface.Model {
+        CarConnectionManager.Listener, HomeCardInterface.Model {
 
     private static final String TAG = "ProjectionModel";
 
     private HomeCardInterface.Presenter mPresenter;
-    private Car mCar;
+    private CarConnectionManager mCarConnection;
     private CarProjectionManager mCarProjectionManager;
     private PackageManager mPackageManager;
     private Resources mResources;
+    // 在onPrepare中加载，可能在工作线程上
+    private boolean mPrepared;
 
     private CharSequence mAppName;
     private Drawable mAppIcon;
@@ -60,30 +65,57 @@ public class ProjectionModel implements CarProjectionManager.ProjectionStatusLis
     private Intent mIntent;
 
     @Override
-    public void onCreate(Context context) {
-        if (mCar == null) {
-            mCar = Car.createCar(context);
-            mCarProjectionManager = (CarProjectionManager) mCar.getCarManager(
-                    Car.PROJECTION_SERVICE);
-        }
+    public void onPrepare(Context context) {
         mPackageManager = context.getPackageManager();
         mResources = context.getResources();
+        mLaunchMessage = mResources.getString(R.string.projected_launch_text);
+        mTapToLaunchText = mResources.getString(R.string.tap_to_launch_text);
+        mPrepared = true;
+    }
 
-        mCarProjectionManager.registerProjectionStatusListener(this);
-        mLaunchMessage = context.getResources().getString(R.string.projected_launch_text);
-        mTapToLaunchText = context.getResources().getString(R.string.tap_to_launch_text);
+    @Override
+    public void onCreate(Context context) {
+        // 准备好的资源只使用一次，之后重新创建时按当前配置重新加载
+        if (!mPrepared) {
+            onPrepare(context);
+        }
+        mPrepared = false;
+
+        // 使用进程共享的汽车服务连接，连接就绪后再注册，不阻塞主屏的创建；
+        // 汽车服务重启后进程不会被杀死，每次重新连接时都要重新注册
+        mCarConnection = CarConnectionManager.getInstance(context);
+        mCarConnection.addListener(this);
     }
 
     @Override
     public void onDestroy(Context context) {
-        if (mCar != null) {
-            mCar.disconnect();
+        if (mCarConnection != null) {
+            mCarConnection.removeListener(this);
+            mCarConnection = null;
         }
         if (mCarProjectionManager != null) {
             mCarProjectionManager.unregisterProjectionStatusListener(this);
+            mCarProjectionManager = null;
         }
     }
 
+    @Override
+    public void onCarConnected(@NonNull Car car) {
+        mCarProjectionManager = (CarProjectionManager) car.getCarManager(
+                Car.PROJECTION_SERVICE);
+        if (mCarProjectionManager == null) {
+            Log.w(TAG, "Car projection service not available");
+            return;
+        }
+        mCarProjectionManager.registerProjectionStatusListener(this);
+    }
+
+    @Override
+    public void onCarDisconnected() {
+        // 断开后管理器已经失效，不需要也不能再注销
+        mCarProjectionManager = null;
+    }
+
     @Override
     public CardHeader getCardHeader() {
         return mAppName == null ? null : new CardHeader(mAppName, mAppIcon);
@@ -25,6 +25,8 @@ import android.view.ViewStub;
 import android.widget.Chronometer;
 import android.widget.TextView;
 
+import androidx.annotation.NonNull;
+
 import com.android.car.apps.common.BitmapUtils;
 import com.android.car.apps.common.ImageUtils;
 import com.android.car.carlauncher.R;
@@ -81,6 +83,19 @@ public class AudioFragment extends HomeCardFragment {
         }
     }
 
+    /**
+     * 没有中间控件的音频内容使用媒体布局显示
+     */
+    @NonNull
+    @Override
+    protected Object getContentLayout(CardContent content) {
+        if (content.getType() == CardContent.HomeCardContentType.DESCRIPTIVE_TEXT_WITH_CONTROLS
+                && ((DescriptiveTextWithControlsView) content).getCenterControl() == null) {
+            return R.layout.card_content_media;
+        }
+        return super.getContentLayout(content);
+    }
+
     @Override
     protected void hideAllViews() {
         super.hideAllViews();
@@ -88,6 +103,16 @@ public class AudioFragment extends HomeCardFragment {
         getMediaLayoutView().setVisibility(View.GONE);
     }
 
+    @Override
+    protected void onDiscardThemedViews() {
+        super.onDiscardThemedViews();
+        // 计时器属于带控件的内容布局，随之重新填充
+        mChronometer = null;
+        mChronometerSeparator = null;
+        replaceWithViewStub(mMediaLayoutView, R.layout.card_content_media);
+        mMediaLayoutView = null;
+    }
+
     private Chronometer getChronometer() {
         if (mChronometer == null) {
             mChronometer = getDescriptiveTextWithControlsLayoutView().findViewById(
@@ -122,13 +147,16 @@ public class AudioFragment extends HomeCardFragment {
 
             getCardBackgroundImage().setImageBitmap(blurredBackground, /* showAnimation= */ true);
             getCardBackground().setVisibility(View.VISIBLE);
+        } else {
+            // 布局不变时不会先隐藏所有视图，没有图片时在这里隐藏背景
+            getCardBackground().setVisibility(View.GONE);
         }
     }
 
     private void updateMediaView(CharSequence title, CharSequence subtitle) {
         getMediaLayoutView().setVisibility(View.VISIBLE);
-        mMediaTitle.setText(title);
-        mMediaSubtitle.setText(subtitle);
+        setTextIfChanged(mMediaTitle, title);
+        setTextIfChanged(mMediaSubtitle, subtitle);
     }
 
     private void updateAudioDuration(DescriptiveTextWithControlsView content) {
@@ -22,6 +22,7 @@ import com.android.car.carlauncher.homescreen.CardPresenter;
 import com.android.car.carlauncher.homescreen.HomeCardInterface;
 import com.android.car.media.common.PlaybackControlsActionBar;
 
+import java.util.Collections;
 import java.util.List;
 
 /**
@@ -39,6 +40,11 @@ public class HomeAudioCardPresenter extends CardPresenter {
         mModelList = models;
     }
 
+    @Override
+    public List<HomeCardInterface.Model> getModels() {
+        return mModelList == null ? Collections.emptyList() : mModelList;
+    }
+
     /**
      * 创建视图时调用
      */
@@ -58,6 +64,7 @@ public class HomeAudioCardPresenter extends CardPresenter {
      */
     @Override
     public void onViewDestroyed() {
+        super.onViewDestroyed();
         if (mModelList != null) {
             for (HomeCardInterface.Model model : mModelList) {
                 model.onDestroy(getFragment().requireContext());
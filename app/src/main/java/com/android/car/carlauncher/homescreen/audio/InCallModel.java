@@ -64,6 +64,8 @@ public class InCallModel implements HomeCardInterface.Model, InCallServiceImpl.I
     private InCallServiceImpl mInCallService;
     private HomeCardInterface.Presenter mPresenter;
 
+    // 在onPrepare中加载，可能在工作线程上
+    private boolean mPrepared;
     private CardHeader mCardHeader;
     private CardContent mCardContent;
     private CharSequence mOngoingCallSubtitle;
@@ -117,11 +119,10 @@ public class InCallModel implements HomeCardInterface.Model, InCallServiceImpl.I
     }
 
     @Override
-    public void onCreate(Context context) {
-        mContext = context;
+    public void onPrepare(Context context) {
         mTelecomManager = context.getSystemService(TelecomManager.class);
         mOngoingCallSubtitle = context.getResources().getString(R.string.ongoing_call_text);
-        initializeAudioControls();
+        initializeAudioControls(context);
         try {
             PackageManager pm = context.getPackageManager();
             Drawable appIcon = pm.getApplicationIcon(mTelecomManager.getDefaultDialerPackage());
@@ -132,6 +133,17 @@ public class InCallModel implements HomeCardInterface.Model, InCallServiceImpl.I
         } catch (PackageManager.NameNotFoundException e) {
             Log.w(TAG, "No default dialer package found", e);
         }
+        mPrepared = true;
+    }
+
+    @Override
+    public void onCreate(Context context) {
+        mContext = context;
+        // 准备好的资源只使用一次，之后重新创建时按当前配置重新加载
+        if (!mPrepared) {
+            onPrepare(context);
+        }
+        mPrepared = false;
 
         Intent intent = new Intent(context, InCallServiceImpl.class);
         intent.setAction(InCallServiceImpl.ACTION_LOCAL_BIND);
@@ -254,17 +266,17 @@ public class InCallModel implements HomeCardInterface.Model, InCallServiceImpl.I
         mPresenter.onModelUpdated(this);
     }
 
-    private void initializeAudioControls() {
+    private void initializeAudioControls(Context context) {
         mMuteButton = new DescriptiveTextWithControlsView.Control(
-                mContext.getDrawable(R.drawable.ic_mic_off),
+                context.getDrawable(R.drawable.ic_mic_off),
                 v -> {
                     mInCallService.setMuted(mMuteCallToggle);
                     mMuteCallToggle = !mMuteCallToggle;
                 });
         mEndCallButton = new DescriptiveTextWithControlsView.Control(
-                mContext.getDrawable(R.drawable.ic_call_end_button),
+                context.getDrawable(R.drawable.ic_call_end_button),
                 v -> mCurrentCall.disconnect());
         mDialpadButton = new DescriptiveTextWithControlsView.Control(
-                mContext.getDrawable(R.drawable.ic_dialpad), this::onClick);
+                context.getDrawable(R.drawable.ic_dialpad), this::onClick);
     }
 }
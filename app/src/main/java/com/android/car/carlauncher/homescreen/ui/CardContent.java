@@ -18,6 +18,9 @@ package com.android.car.carlauncher.homescreen.ui;
 
 /**
  * 定义家庭应用卡标题下方显示的内容。
+ *
+ * <p>子类是不可变的值类型，实现 {@link #equals} 和 {@link #hashCode}：文本按内容比较，
+ * 图标和点击监听器按实例比较。视图据此跳过没有变化的更新。
  */
 public abstract class CardContent {
 
@@ -37,4 +40,9 @@ public abstract class CardContent {
      * 返回内容布局的类型
      */
     public abstract HomeCardContentType getType();
+
+    /** 按文本内容计算哈希值，与 {@link android.text.TextUtils#equals} 一致。 */
+    static int textHash(CharSequence text) {
+        return text == null ? 0 : text.toString().hashCode();
+    }
 }
@@ -17,10 +17,15 @@
 package com.android.car.carlauncher.homescreen.ui;
 
 import android.graphics.drawable.Drawable;
+import android.text.TextUtils;
+
+import java.util.Objects;
 
 /**
  * 家庭应用卡的标题显示提供的应用的名称和图标
  * 显示的数据。
+ *
+ * <p>不可变。文本按内容比较，图标按实例比较，视图据此跳过没有变化的更新。
  */
 public final class CardHeader {
     private final CharSequence mCardTitle;
@@ -44,4 +49,21 @@ public final class CardHeader {
     public Drawable getCardIcon() {
         return mCardIcon;
     }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof CardHeader)) {
+            return false;
+        }
+        CardHeader other = (CardHeader) o;
+        return TextUtils.equals(mCardTitle, other.mCardTitle) && mCardIcon == other.mCardIcon;
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(CardContent.textHash(mCardTitle), mCardIcon);
+    }
 }
@@ -17,16 +17,19 @@
 package com.android.car.carlauncher.homescreen.ui;
 
 import android.graphics.drawable.Drawable;
+import android.text.TextUtils;
+
+import java.util.Objects;
 
 /**
  * 显示文本标题行并在其下方显示字幕行的布局
  */
 public class DescriptiveTextView extends CardContent {
 
-    private Drawable mImage;
-    private CharSequence mTitle;
-    private CharSequence mSubtitle;
-    private CharSequence mFooter;
+    private final Drawable mImage;
+    private final CharSequence mTitle;
+    private final CharSequence mSubtitle;
+    private final CharSequence mFooter;
 
     public DescriptiveTextView(Drawable image, CharSequence title, CharSequence subtitle) {
         this(image, title, subtitle, /* footer = */ null);
@@ -66,4 +69,24 @@ public class DescriptiveTextView extends CardContent {
     public Drawable getImage() {
         return mImage;
     }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof DescriptiveTextView)) {
+            return false;
+        }
+        DescriptiveTextView other = (DescriptiveTextView) o;
+        return mImage == other.mImage
+                && TextUtils.equals(mTitle, other.mTitle)
+                && TextUtils.equals(mSubtitle, other.mSubtitle)
+                && TextUtils.equals(mFooter, other.mFooter);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(mImage, textHash(mTitle), textHash(mSubtitle), textHash(mFooter));
+    }
 }
@@ -17,38 +17,37 @@
 package com.android.car.carlauncher.homescreen.ui;
 
 import android.graphics.drawable.Drawable;
+import android.text.TextUtils;
 import android.view.View;
 
+import java.util.Objects;
+
 /**
  * 一种显示文本标题行的布局，下面有一个副标题行和三个按钮
  * 控制音频。使用card_content_descriptive_text_with_controls.xml显示
  */
 public class DescriptiveTextWithControlsView extends CardContent {
 
-    private Drawable mImage;
-    private CharSequence mTitle;
-    private CharSequence mSubtitle;
+    private final Drawable mImage;
+    private final CharSequence mTitle;
+    private final CharSequence mSubtitle;
 
-    private Control mLeftControl;
-    private Control mCenterControl;
-    private Control mRightControl;
-    private long mStartTime;
+    private final Control mLeftControl;
+    private final Control mCenterControl;
+    private final Control mRightControl;
+    private final long mStartTime;
 
     public DescriptiveTextWithControlsView(Drawable image, CharSequence title,
             CharSequence subtitle) {
-        mImage = image;
-        mTitle = title;
-        mSubtitle = subtitle;
+        this(image, title, subtitle, /* leftControl= */ null, /* centerControl= */ null,
+                /* rightControl= */ null);
     }
 
     public DescriptiveTextWithControlsView(Drawable image, CharSequence title,
-            CharSequence subtitle,Control leftControl, Control centerControl, Control rightControl) {
-        mImage = image;
-        mTitle = title;
-        mSubtitle = subtitle;
-        mLeftControl = leftControl;
-        mCenterControl = centerControl;
-        mRightControl = rightControl;
+            CharSequence subtitle, Control leftControl, Control centerControl,
+            Control rightControl) {
+        this(image, title, subtitle, /* startTime= */ 0, leftControl, centerControl,
+                rightControl);
     }
 
     public DescriptiveTextWithControlsView(Drawable image, CharSequence title,
@@ -96,14 +95,38 @@ public class DescriptiveTextWithControlsView extends CardContent {
         return mRightControl;
     }
 
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof DescriptiveTextWithControlsView)) {
+            return false;
+        }
+        DescriptiveTextWithControlsView other = (DescriptiveTextWithControlsView) o;
+        return mImage == other.mImage
+                && TextUtils.equals(mTitle, other.mTitle)
+                && TextUtils.equals(mSubtitle, other.mSubtitle)
+                && mStartTime == other.mStartTime
+                && Objects.equals(mLeftControl, other.mLeftControl)
+                && Objects.equals(mCenterControl, other.mCenterControl)
+                && Objects.equals(mRightControl, other.mRightControl);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(mImage, textHash(mTitle), textHash(mSubtitle), mStartTime,
+                mLeftControl, mCenterControl, mRightControl);
+    }
+
     /**
      * 一种显示文本标题行的布局，下面有一个副标题行和三个按钮
      * 控制音频。使用card_content_descriptive_text_with_controls.xml显示
      */
     public static class Control {
 
-        private Drawable mIcon;
-        private View.OnClickListener mOnClickListener;
+        private final Drawable mIcon;
+        private final View.OnClickListener mOnClickListener;
 
         public Control(Drawable icon, View.OnClickListener listener) {
             mIcon = icon;
@@ -117,5 +140,22 @@ public class DescriptiveTextWithControlsView extends CardContent {
         public View.OnClickListener getOnClickListener() {
             return mOnClickListener;
         }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof Control)) {
+                return false;
+            }
+            Control other = (Control) o;
+            return mIcon == other.mIcon && mOnClickListener == other.mOnClickListener;
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(mIcon, mOnClickListener);
+        }
     }
 }
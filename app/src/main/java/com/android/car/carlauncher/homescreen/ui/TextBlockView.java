@@ -16,13 +16,17 @@
 
 package com.android.car.carlauncher.homescreen.ui;
 
+import android.text.TextUtils;
+
+import java.util.Objects;
+
 /**
  * 显示潜在多行文本块的布局
  */
 public class TextBlockView extends CardContent {
 
-    private CharSequence mText;
-    private CharSequence mFooter;
+    private final CharSequence mText;
+    private final CharSequence mFooter;
 
     public TextBlockView(CharSequence text) {
         this(text, /* footer = */ null);
@@ -48,4 +52,21 @@ public class TextBlockView extends CardContent {
     public CharSequence getFooter() {
         return mFooter;
     }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof TextBlockView)) {
+            return false;
+        }
+        TextBlockView other = (TextBlockView) o;
+        return TextUtils.equals(mText, other.mText) && TextUtils.equals(mFooter, other.mFooter);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(textHash(mText), textHash(mFooter));
+    }
 }
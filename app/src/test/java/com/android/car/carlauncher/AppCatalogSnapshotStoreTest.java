@@ -0,0 +1,165 @@
+/*
+ * Copyright (C) 2022 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.car.carlauncher;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import android.content.ComponentName;
+
+import com.android.car.carlauncher.AppLauncherUtils.LauncherAppsInfo;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+@RunWith(JUnit4.class)
+public class AppCatalogSnapshotStoreTest {
+
+    private static final ComponentName ACTIVITY =
+            new ComponentName("com.example.app", "com.example.app.MainActivity");
+    private static final ComponentName MEDIA_SERVICE =
+            new ComponentName("com.example.media", "com.example.media.MediaService");
+    private static final ComponentName MEDIA_ONLY_SERVICE =
+            new ComponentName("com.example.hidden", "com.example.hidden.MediaService");
+    private static final int MAGIC = 0x43415443;
+
+    @Rule
+    public final TemporaryFolder mTemporaryFolder = new TemporaryFolder();
+
+    private File mFile;
+    private AppCatalogSnapshotStore mStore;
+
+    @Before
+    public void setUp() {
+        mFile = new File(mTemporaryFolder.getRoot(), "catalog_snapshot");
+        mStore = new AppCatalogSnapshotStore(mFile);
+    }
+
+    @Test
+    public void read_missingFile_returnsNull() {
+        assertNull(mStore.read());
+    }
+
+    @Test
+    public void writeThenRead_roundTripsAllEntries() {
+        mStore.write(createAppsInfo());
+
+        List<AppCatalogSnapshotStore.Entry> entries = mStore.read();
+
+        assertEquals(3, entries.size());
+        Map<ComponentName, AppCatalogSnapshotStore.Entry> byComponent = new HashMap<>();
+        for (AppCatalogSnapshotStore.Entry entry : entries) {
+            byComponent.put(entry.mComponentName, entry);
+        }
+        AppCatalogSnapshotStore.Entry activity = byComponent.get(ACTIVITY);
+        assertEquals("Activity é", activity.mLabel);
+        assertEquals(3, activity.mVersionCode);
+        assertFalse(activity.mIsDistractionOptimized);
+        assertFalse(activity.mIsMediaService);
+        assertTrue(activity.mIsLaunchable);
+
+        AppCatalogSnapshotStore.Entry media = byComponent.get(MEDIA_SERVICE);
+        assertEquals("Media", media.mLabel);
+        assertTrue(media.mIsDistractionOptimized);
+        assertTrue(media.mIsMediaService);
+        assertTrue(media.mIsLaunchable);
+
+        // Media services that are not launchable keep only their component.
+        AppCatalogSnapshotStore.Entry mediaOnly = byComponent.get(MEDIA_ONLY_SERVICE);
+        assertEquals("", mediaOnly.mLabel);
+        assertEquals(AppMetaData.UNKNOWN_VERSION, mediaOnly.mVersionCode);
+        assertTrue(mediaOnly.mIsMediaService);
+        assertFalse(mediaOnly.mIsLaunchable);
+    }
+
+    @Test
+    public void read_formatVersionMismatch_returnsNull() throws IOException {
+        try (DataOutputStream out = new DataOutputStream(new FileOutputStream(mFile))) {
+            out.writeInt(MAGIC);
+            out.writeInt(/* formatVersion= */ 1);
+            out.writeInt(/* entryCount= */ 0);
+        }
+
+        assertNull(mStore.read());
+    }
+
+    @Test
+    public void read_wrongMagic_returnsNull() throws IOException {
+        try (DataOutputStream out = new DataOutputStream(new FileOutputStream(mFile))) {
+            out.writeInt(MAGIC + 1);
+        }
+
+        assertNull(mStore.read());
+    }
+
+    @Test
+    public void read_truncatedFile_returnsNull() throws IOException {
+        mStore.write(createAppsInfo());
+        try (RandomAccessFile file = new RandomAccessFile(mFile, "rw")) {
+            file.setLength(file.length() - 3);
+        }
+
+        assertNull(mStore.read());
+    }
+
+    @Test
+    public void write_replacesPreviousSnapshot() {
+        mStore.write(createAppsInfo());
+        mStore.write(new LauncherAppsInfo(Collections.emptyMap(), Collections.emptySet(),
+                Collections.emptyMap(), Collections.emptyMap()));
+
+        assertTrue(mStore.read().isEmpty());
+    }
+
+    private static LauncherAppsInfo createAppsInfo() {
+        Map<ComponentName, AppMetaData> launchables = new HashMap<>();
+        launchables.put(ACTIVITY, AppLauncherUtils.createLauncherActivityMetaData(
+                "Activity é", ACTIVITY, /* versionCode= */ 3, createIcon(ACTIVITY),
+                /* isDistractionOptimized= */ false));
+        launchables.put(MEDIA_SERVICE, AppLauncherUtils.createLauncherActivityMetaData("Media",
+                MEDIA_SERVICE, /* versionCode= */ 5, createIcon(MEDIA_SERVICE),
+                /* isDistractionOptimized= */ true));
+        Set<ComponentName> mediaServices = new HashSet<>();
+        mediaServices.add(MEDIA_SERVICE);
+        mediaServices.add(MEDIA_ONLY_SERVICE);
+        return new LauncherAppsInfo(launchables, mediaServices, new HashMap<>(),
+                new HashMap<>());
+    }
+
+    private static AppIconHandle createIcon(ComponentName componentName) {
+        return new AppIconHandle(/* iconCache= */ null, componentName, /* versionCode= */ 1,
+                /* loader= */ null);
+    }
+}
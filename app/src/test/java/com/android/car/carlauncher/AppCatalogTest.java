@@ -0,0 +1,160 @@
+/*
+ * Copyright (C) 2022 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.car.carlauncher;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import android.content.ComponentName;
+import android.content.Intent;
+import android.content.pm.LauncherActivityInfo;
+import android.content.pm.LauncherApps;
+import android.content.pm.PackageManager;
+import android.os.UserHandle;
+
+import com.android.car.carlauncher.AppLauncherUtils.LauncherAppsInfo;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+
+@RunWith(JUnit4.class)
+public class AppCatalogTest {
+
+    private static final String PACKAGE_APP = "com.example.app";
+    private static final String PACKAGE_MEDIA = "com.example.media";
+    private static final ComponentName ACTIVITY =
+            new ComponentName(PACKAGE_APP, PACKAGE_APP + ".MainActivity");
+    private static final ComponentName NEW_ACTIVITY =
+            new ComponentName(PACKAGE_APP, PACKAGE_APP + ".NewActivity");
+    private static final ComponentName MEDIA_ACTIVITY =
+            new ComponentName(PACKAGE_MEDIA, PACKAGE_MEDIA + ".MainActivity");
+    private static final ComponentName MEDIA_SERVICE =
+            new ComponentName(PACKAGE_MEDIA, PACKAGE_MEDIA + ".MediaService");
+
+    @Mock
+    private LauncherApps mLauncherApps;
+    @Mock
+    private PackageManager mPackageManager;
+
+    private AppCatalog mCatalog;
+
+    @Before
+    public void setUp() throws PackageManager.NameNotFoundException {
+        MockitoAnnotations.initMocks(this);
+        when(mPackageManager.queryIntentServices(any(Intent.class), anyInt()))
+                .thenReturn(Collections.emptyList());
+        when(mPackageManager.getPackageInfo(any(String.class), anyInt()))
+                .thenThrow(new PackageManager.NameNotFoundException());
+        when(mLauncherApps.getActivityList(any(), any(UserHandle.class)))
+                .thenReturn(Collections.emptyList());
+        // The car managers are final; the catalog only sees them through these interfaces.
+        mCatalog = new AppCatalog(mLauncherApps, /* doLookup= */ componentName -> true,
+                mPackageManager, /* mediaSourceSelector= */ componentName -> { },
+                /* doCache= */ null, /* iconCache= */ null);
+        assertTrue(mCatalog.restore(Arrays.asList(
+                entry(ACTIVITY, /* isMediaService= */ false, /* isLaunchable= */ true),
+                entry(MEDIA_ACTIVITY, /* isMediaService= */ false, /* isLaunchable= */ true),
+                entry(MEDIA_SERVICE, /* isMediaService= */ true, /* isLaunchable= */ false))));
+    }
+
+    @Test
+    public void restore_rebuildsPackageIndexes() {
+        LauncherAppsInfo appsInfo = mCatalog.snapshot();
+
+        assertEquals(new HashSet<>(Arrays.asList(ACTIVITY, MEDIA_ACTIVITY)),
+                appsInfo.getLaunchables().keySet());
+        assertEquals(Collections.singleton(MEDIA_SERVICE), appsInfo.getMediaServices());
+        assertEquals(MEDIA_SERVICE, appsInfo.getMediaSource(PACKAGE_MEDIA));
+        assertEquals(ACTIVITY, appsInfo.getLauncherActivity(PACKAGE_APP));
+        assertEquals(MEDIA_ACTIVITY, appsInfo.getLauncherActivity(PACKAGE_MEDIA));
+        assertNull(appsInfo.getMediaSource(PACKAGE_APP));
+    }
+
+    @Test
+    public void restore_noSnapshot_keepsCurrentContent() {
+        assertFalse(mCatalog.restore(/* entries= */ null));
+
+        assertEquals(2, mCatalog.snapshot().getLaunchables().size());
+    }
+
+    @Test
+    public void removePackage_dropsEntriesFromEveryIndex() {
+        mCatalog.removePackage(PACKAGE_MEDIA);
+
+        LauncherAppsInfo appsInfo = mCatalog.snapshot();
+        assertEquals(Collections.singleton(ACTIVITY), appsInfo.getLaunchables().keySet());
+        assertTrue(appsInfo.getMediaServices().isEmpty());
+        assertNull(appsInfo.getMediaSource(PACKAGE_MEDIA));
+        assertNull(appsInfo.getLauncherActivity(PACKAGE_MEDIA));
+        assertEquals(ACTIVITY, appsInfo.getLauncherActivity(PACKAGE_APP));
+    }
+
+    @Test
+    public void updatePackage_replacesOnlyThatPackage() {
+        LauncherActivityInfo newActivity = mock(LauncherActivityInfo.class);
+        when(newActivity.getComponentName()).thenReturn(NEW_ACTIVITY);
+        when(newActivity.getName()).thenReturn(NEW_ACTIVITY.getClassName());
+        when(newActivity.getLabel()).thenReturn("New");
+        List<LauncherActivityInfo> activities = Collections.singletonList(newActivity);
+        when(mLauncherApps.getActivityList(eq(PACKAGE_APP), any(UserHandle.class)))
+                .thenReturn(activities);
+
+        mCatalog.updatePackage(PACKAGE_APP);
+
+        LauncherAppsInfo appsInfo = mCatalog.snapshot();
+        assertEquals(new HashSet<>(Arrays.asList(NEW_ACTIVITY, MEDIA_ACTIVITY)),
+                appsInfo.getLaunchables().keySet());
+        assertEquals("New", appsInfo.getAppMetaData(NEW_ACTIVITY).getDisplayName());
+        assertEquals(AppMetaData.UNKNOWN_VERSION,
+                appsInfo.getAppMetaData(NEW_ACTIVITY).getVersionCode());
+        assertEquals(NEW_ACTIVITY, appsInfo.getLauncherActivity(PACKAGE_APP));
+        // The other package's media source survives the delta.
+        assertEquals(MEDIA_SERVICE, appsInfo.getMediaSource(PACKAGE_MEDIA));
+    }
+
+    @Test
+    public void updatePackage_packageWithoutComponents_removesIt() {
+        mCatalog.updatePackage(PACKAGE_APP);
+
+        LauncherAppsInfo appsInfo = mCatalog.snapshot();
+        assertEquals(Collections.singleton(MEDIA_ACTIVITY), appsInfo.getLaunchables().keySet());
+        assertNull(appsInfo.getLauncherActivity(PACKAGE_APP));
+    }
+
+    private static AppCatalogSnapshotStore.Entry entry(ComponentName componentName,
+            boolean isMediaService, boolean isLaunchable) {
+        return new AppCatalogSnapshotStore.Entry(componentName, componentName.getClassName(),
+                /* versionCode= */ 1, /* isDistractionOptimized= */ true, isMediaService,
+                isLaunchable);
+    }
+}
@@ -0,0 +1,272 @@
+/*
+ * Copyright (C) 2022 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.car.carlauncher;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import android.app.Instrumentation;
+import android.content.ComponentName;
+import android.content.Context;
+import android.graphics.Color;
+import android.graphics.drawable.ColorDrawable;
+import android.graphics.drawable.Drawable;
+import android.view.View;
+import android.widget.FrameLayout;
+import android.widget.ImageView;
+import android.widget.TextView;
+
+import androidx.annotation.Nullable;
+import androidx.recyclerview.widget.RecyclerView;
+import androidx.test.core.app.ApplicationProvider;
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+import androidx.test.filters.SmallTest;
+import androidx.test.platform.app.InstrumentationRegistry;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+@RunWith(AndroidJUnit4.class)
+@SmallTest
+public class AppGridAdapterTest {
+
+    private static final long TIMEOUT_MS = 5000;
+
+    private static final AppMetaData APP_A = createApp("com.example.a", "A", true);
+    private static final AppMetaData APP_B = createApp("com.example.b", "B", true);
+    private static final AppMetaData APP_C = createApp("com.example.c", "C", true);
+    private static final AppMetaData RECENT_APP = createApp("com.example.r", "R", true);
+    private static final AppMetaData UNOPTIMIZED_APP = createApp("com.example.u", "U", false);
+    private static final String DO_PAYLOAD =
+            AppGridAdapter.Payload.DISTRACTION_OPTIMIZATION_REQUIRED.toString();
+
+    private Instrumentation mInstrumentation;
+    private Context mContext;
+    private AppGridAdapter mAdapter;
+    private final List<String> mNotifications = new ArrayList<>();
+
+    @Before
+    public void setUp() {
+        mInstrumentation = InstrumentationRegistry.getInstrumentation();
+        mContext = ApplicationProvider.getApplicationContext();
+        mInstrumentation.runOnMainSync(() -> {
+            mAdapter = new AppGridAdapter(mContext);
+            mAdapter.registerAdapterDataObserver(new RecordingObserver());
+        });
+    }
+
+    @Test
+    public void setAllApps_withoutRecentRow_dispatchesListPositions() throws Exception {
+        submitAndWait(Arrays.asList(APP_A, APP_B, APP_C));
+        mNotifications.clear();
+
+        submitAndWait(Arrays.asList(APP_A, createApp("com.example.b", "B2", true), APP_C));
+
+        assertEquals(Collections.singletonList("changed(1, 1, null)"), mNotifications);
+    }
+
+    @Test
+    public void setAllApps_withRecentRow_offsetsPositionsByOne() throws Exception {
+        mInstrumentation.runOnMainSync(
+                () -> mAdapter.setMostRecentApps(Collections.singletonList(RECENT_APP)));
+        submitAndWait(Arrays.asList(APP_A, APP_C));
+        assertEquals(Arrays.asList("inserted(0, 1)", "inserted(1, 2)"), mNotifications);
+        mNotifications.clear();
+
+        submitAndWait(Arrays.asList(APP_A, APP_B, createApp("com.example.c", "C2", true)));
+
+        // B is inserted between A and C, and C's changed label rebinds only C.
+        assertEquals(Arrays.asList("changed(2, 1, null)", "inserted(2, 1)"),
+                sorted(mNotifications));
+        assertEquals(4, mAdapter.getItemCount());
+    }
+
+    @Test
+    public void setAllApps_unchangedList_dispatchesNothing() throws Exception {
+        submitAndWait(Arrays.asList(APP_A, APP_B));
+        mNotifications.clear();
+
+        submitAndWait(Arrays.asList(APP_B, APP_A));
+
+        assertTrue(mNotifications.isEmpty());
+    }
+
+    @Test
+    public void setMostRecentApps_onlyRebindsRowWhenItChanges() {
+        mInstrumentation.runOnMainSync(() -> {
+            mAdapter.setMostRecentApps(Collections.singletonList(RECENT_APP));
+            mAdapter.setMostRecentApps(Collections.singletonList(RECENT_APP));
+            mAdapter.setMostRecentApps(Arrays.asList(RECENT_APP, APP_A));
+            mAdapter.setMostRecentApps(null);
+        });
+
+        assertEquals(Arrays.asList("inserted(0, 1)", "changed(0, 1, null)", "removed(0, 1)"),
+                mNotifications);
+    }
+
+    @Test
+    public void setIsDistractionOptimizationRequired_notifiesOnlyUnoptimizedApps()
+            throws Exception {
+        submitAndWait(Arrays.asList(APP_A, UNOPTIMIZED_APP, APP_C));
+        mNotifications.clear();
+
+        mInstrumentation.runOnMainSync(() -> {
+            mAdapter.setIsDistractionOptimizationRequired(true);
+            // Repeating the same state dispatches nothing.
+            mAdapter.setIsDistractionOptimizationRequired(true);
+        });
+
+        assertEquals(Collections.singletonList("changed(2, 1, " + DO_PAYLOAD + ")"),
+                mNotifications);
+    }
+
+    @Test
+    public void setIsDistractionOptimizationRequired_adjacentUnoptimizedApps_notifiesOneRange()
+            throws Exception {
+        submitAndWait(Arrays.asList(APP_A, createApp("com.example.u1", "B1", false),
+                createApp("com.example.u2", "B2", false), APP_C,
+                createApp("com.example.u3", "D", false)));
+        mNotifications.clear();
+
+        mInstrumentation.runOnMainSync(() -> mAdapter.setIsDistractionOptimizationRequired(true));
+
+        assertEquals(Arrays.asList("changed(1, 2, " + DO_PAYLOAD + ")",
+                "changed(4, 1, " + DO_PAYLOAD + ")"), mNotifications);
+    }
+
+    @Test
+    public void setIsDistractionOptimizationRequired_withRecentRow_notifiesRowAndOffsets()
+            throws Exception {
+        mInstrumentation.runOnMainSync(
+                () -> mAdapter.setMostRecentApps(Collections.singletonList(UNOPTIMIZED_APP)));
+        submitAndWait(Arrays.asList(APP_A, UNOPTIMIZED_APP));
+        mNotifications.clear();
+
+        mInstrumentation.runOnMainSync(() -> mAdapter.setIsDistractionOptimizationRequired(true));
+
+        assertEquals(Arrays.asList("changed(0, 1, " + DO_PAYLOAD + ")",
+                "changed(2, 1, " + DO_PAYLOAD + ")"), mNotifications);
+    }
+
+    @Test
+    public void setIsDistractionOptimizationRequired_optimizedRecentRow_isNotRebound()
+            throws Exception {
+        mInstrumentation.runOnMainSync(
+                () -> mAdapter.setMostRecentApps(Collections.singletonList(RECENT_APP)));
+        submitAndWait(Arrays.asList(APP_A, APP_B));
+        mNotifications.clear();
+
+        mInstrumentation.runOnMainSync(() -> mAdapter.setIsDistractionOptimizationRequired(true));
+
+        assertTrue(mNotifications.isEmpty());
+    }
+
+    @Test
+    public void onBindViewHolder_distractionOptimizationPayload_updatesOnlyLaunchability()
+            throws Exception {
+        submitAndWait(Collections.singletonList(UNOPTIMIZED_APP));
+        Drawable sentinelIcon = new ColorDrawable(Color.BLUE);
+        float[] alphas = new float[2];
+        View[] itemView = new View[1];
+        mInstrumentation.runOnMainSync(() -> {
+            RecyclerView.ViewHolder holder = mAdapter.createViewHolder(
+                    new FrameLayout(mContext), AppGridAdapter.APP_ITEM_TYPE);
+            mAdapter.bindViewHolder(holder, /* position= */ 0);
+            itemView[0] = holder.itemView;
+            ImageView iconView = holder.itemView.findViewById(R.id.app_icon);
+            alphas[0] = iconView.getAlpha();
+            // A full rebind would overwrite these.
+            iconView.setImageDrawable(sentinelIcon);
+            ((TextView) holder.itemView.findViewById(R.id.app_name)).setText("sentinel");
+
+            mAdapter.setIsDistractionOptimizationRequired(true);
+            mAdapter.onBindViewHolder(holder, /* position= */ 0, Collections.singletonList(
+                    AppGridAdapter.Payload.DISTRACTION_OPTIMIZATION_REQUIRED));
+            alphas[1] = iconView.getAlpha();
+        });
+
+        assertNotEquals(alphas[0], alphas[1], /* delta= */ 0);
+        assertSame(sentinelIcon,
+                ((ImageView) itemView[0].findViewById(R.id.app_icon)).getDrawable());
+        assertEquals("sentinel",
+                ((TextView) itemView[0].findViewById(R.id.app_name)).getText().toString());
+    }
+
+    private void submitAndWait(List<AppMetaData> apps) throws InterruptedException {
+        CountDownLatch committed = new CountDownLatch(1);
+        mInstrumentation.runOnMainSync(() -> mAdapter.setAllApps(apps, committed::countDown));
+        assertTrue(committed.await(TIMEOUT_MS, TimeUnit.MILLISECONDS));
+        mInstrumentation.waitForIdleSync();
+    }
+
+    private static List<String> sorted(List<String> notifications) {
+        List<String> sorted = new ArrayList<>(notifications);
+        Collections.sort(sorted);
+        return sorted;
+    }
+
+    static AppMetaData createApp(String packageName, String label,
+            boolean isDistractionOptimized) {
+        ComponentName componentName = new ComponentName(packageName, packageName + ".Main");
+        AppIconHandle icon = new AppIconHandle(/* iconCache= */ null, componentName,
+                /* versionCode= */ 1, () -> new ColorDrawable(Color.RED));
+        // Loaded up front so binding never schedules a background decode.
+        icon.load();
+        return AppLauncherUtils.createLauncherActivityMetaData(label, componentName,
+                /* versionCode= */ 1, icon, isDistractionOptimized);
+    }
+
+    /** Records notifications in adapter positions, as the RecyclerView would see them. */
+    private final class RecordingObserver extends RecyclerView.AdapterDataObserver {
+        @Override
+        public void onChanged() {
+            mNotifications.add("dataSetChanged");
+        }
+
+        @Override
+        public void onItemRangeChanged(int positionStart, int itemCount,
+                @Nullable Object payload) {
+            mNotifications.add("changed(" + positionStart + ", " + itemCount + ", " + payload
+                    + ")");
+        }
+
+        @Override
+        public void onItemRangeInserted(int positionStart, int itemCount) {
+            mNotifications.add("inserted(" + positionStart + ", " + itemCount + ")");
+        }
+
+        @Override
+        public void onItemRangeRemoved(int positionStart, int itemCount) {
+            mNotifications.add("removed(" + positionStart + ", " + itemCount + ")");
+        }
+
+        @Override
+        public void onItemRangeMoved(int fromPosition, int toPosition, int itemCount) {
+            mNotifications.add("moved(" + fromPosition + ", " + toPosition + ")");
+        }
+    }
+}
@@ -0,0 +1,86 @@
+/*
+ * Copyright (C) 2022 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.car.carlauncher;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+
+import android.app.Instrumentation;
+import android.content.Context;
+import android.os.SystemClock;
+
+import androidx.recyclerview.widget.RecyclerView;
+import androidx.test.core.app.ApplicationProvider;
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+import androidx.test.filters.SmallTest;
+import androidx.test.platform.app.InstrumentationRegistry;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+@RunWith(AndroidJUnit4.class)
+@SmallTest
+public class AppGridViewPoolTest {
+
+    private static final long TIMEOUT_MS = 5000;
+
+    private Instrumentation mInstrumentation;
+    private Context mContext;
+
+    @Before
+    public void setUp() {
+        mInstrumentation = InstrumentationRegistry.getInstrumentation();
+        mContext = ApplicationProvider.getApplicationContext();
+    }
+
+    @Test
+    public void get_sameConfiguration_returnsSamePool() {
+        RecyclerView.RecycledViewPool[] pools = new RecyclerView.RecycledViewPool[2];
+        mInstrumentation.runOnMainSync(() -> {
+            pools[0] = AppGridViewPool.get(mContext);
+            pools[1] = AppGridViewPool.get(mContext);
+        });
+
+        assertSame(pools[0], pools[1]);
+    }
+
+    @Test
+    public void prewarm_fillsPoolWithOneScreenAndRecentAppsRow() {
+        int expectedItems = mContext.getResources().getInteger(
+                R.integer.car_app_selector_column_number)
+                * mContext.getResources().getInteger(R.integer.app_grid_prewarmed_row_count);
+
+        mInstrumentation.runOnMainSync(() -> AppGridViewPool.prewarm(mContext));
+
+        // Inflation happens on a background thread and is handed back to the main thread.
+        long deadline = SystemClock.uptimeMillis() + TIMEOUT_MS;
+        while (getRecycledViewCount(AppGridAdapter.APP_ITEM_TYPE) < expectedItems
+                && SystemClock.uptimeMillis() < deadline) {
+            SystemClock.sleep(10);
+        }
+        assertEquals(expectedItems, getRecycledViewCount(AppGridAdapter.APP_ITEM_TYPE));
+        assertEquals(1, getRecycledViewCount(AppGridAdapter.RECENT_APPS_TYPE));
+    }
+
+    private int getRecycledViewCount(int viewType) {
+        int[] count = new int[1];
+        mInstrumentation.runOnMainSync(() ->
+                count[0] = AppGridViewPool.get(mContext).getRecycledViewCount(viewType));
+        return count[0];
+    }
+}
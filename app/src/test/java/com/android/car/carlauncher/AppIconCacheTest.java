@@ -0,0 +1,140 @@
+/*
+ * Copyright (C) 2022 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.car.carlauncher;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+
+import android.content.ComponentName;
+import android.content.Context;
+import android.content.res.Configuration;
+import android.graphics.Color;
+import android.graphics.drawable.ColorDrawable;
+import android.graphics.drawable.Drawable;
+
+import androidx.test.core.app.ApplicationProvider;
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+import androidx.test.filters.SmallTest;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.junit.runner.RunWith;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+@RunWith(AndroidJUnit4.class)
+@SmallTest
+public class AppIconCacheTest {
+
+    private static final ComponentName COMPONENT =
+            new ComponentName("com.example.a", "com.example.a.MainActivity");
+    // Shares a prefix with COMPONENT's package but must not be invalidated with it.
+    private static final ComponentName SIMILAR_COMPONENT =
+            new ComponentName("com.example.a_b", "com.example.a_b.MainActivity");
+    private static final long VERSION_CODE = 3;
+    private static final int MAX_MEMORY_BYTES = 1024 * 1024;
+
+    @Rule
+    public final TemporaryFolder mTemporaryFolder = new TemporaryFolder();
+
+    private final AtomicInteger mLoads = new AtomicInteger();
+    private final Supplier<Drawable> mLoader = () -> {
+        mLoads.incrementAndGet();
+        return new ColorDrawable(Color.RED);
+    };
+
+    private Configuration mConfiguration;
+    private AppIconCache mCache;
+
+    @Before
+    public void setUp() {
+        Context context = ApplicationProvider.getApplicationContext();
+        mConfiguration = new Configuration(context.getResources().getConfiguration());
+        mCache = new AppIconCache(context.getResources(), mTemporaryFolder.getRoot(),
+                MAX_MEMORY_BYTES);
+    }
+
+    @Test
+    public void getIcon_secondCall_servedFromMemory() {
+        assertNotNull(mCache.getIcon(COMPONENT, VERSION_CODE, mLoader));
+        assertNotNull(mCache.getIcon(COMPONENT, VERSION_CODE, mLoader));
+
+        assertEquals(1, mLoads.get());
+        assertEquals(1, mCache.getMemoryHits());
+    }
+
+    @Test
+    public void onConfigurationChanged_densityChange_rasterizesAgain() {
+        mCache.getIcon(COMPONENT, VERSION_CODE, mLoader);
+        Configuration newConfig = new Configuration(mConfiguration);
+        newConfig.densityDpi = mConfiguration.densityDpi * 2;
+
+        mCache.onConfigurationChanged(newConfig);
+        mCache.getIcon(COMPONENT, VERSION_CODE, mLoader);
+
+        // Neither the memory layer nor the other density's disk directory may be used.
+        assertEquals(2, mLoads.get());
+        assertEquals(0, mCache.getDiskHits());
+    }
+
+    @Test
+    public void onConfigurationChanged_nightModeRoundTrip_reusesDiskLayer() {
+        mCache.getIcon(COMPONENT, VERSION_CODE, mLoader);
+        Configuration night = new Configuration(mConfiguration);
+        night.uiMode = (mConfiguration.uiMode & ~Configuration.UI_MODE_NIGHT_MASK)
+                | ((mConfiguration.uiMode & Configuration.UI_MODE_NIGHT_YES) != 0
+                        ? Configuration.UI_MODE_NIGHT_NO
+                        : Configuration.UI_MODE_NIGHT_YES);
+
+        mCache.onConfigurationChanged(night);
+        mCache.getIcon(COMPONENT, VERSION_CODE, mLoader);
+        mCache.onConfigurationChanged(mConfiguration);
+        mCache.getIcon(COMPONENT, VERSION_CODE, mLoader);
+
+        assertEquals(2, mLoads.get());
+        assertEquals(1, mCache.getDiskHits());
+    }
+
+    @Test
+    public void onConfigurationChanged_unrelatedChange_keepsMemoryLayer() {
+        mCache.getIcon(COMPONENT, VERSION_CODE, mLoader);
+        Configuration newConfig = new Configuration(mConfiguration);
+        newConfig.fontScale = mConfiguration.fontScale * 2;
+
+        mCache.onConfigurationChanged(newConfig);
+        mCache.getIcon(COMPONENT, VERSION_CODE, mLoader);
+
+        assertEquals(1, mLoads.get());
+        assertEquals(1, mCache.getMemoryHits());
+    }
+
+    @Test
+    public void invalidatePackage_sameVersionCode_rasterizesAgain() {
+        mCache.getIcon(COMPONENT, VERSION_CODE, mLoader);
+        mCache.getIcon(SIMILAR_COMPONENT, VERSION_CODE, mLoader);
+
+        mCache.invalidatePackage(COMPONENT.getPackageName());
+        mCache.getIcon(COMPONENT, VERSION_CODE, mLoader);
+        mCache.getIcon(SIMILAR_COMPONENT, VERSION_CODE, mLoader);
+
+        assertEquals(3, mLoads.get());
+        assertEquals(1, mCache.getMemoryHits());
+    }
+}
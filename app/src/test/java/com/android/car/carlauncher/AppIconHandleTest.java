@@ -0,0 +1,76 @@
+/*
+ * Copyright (C) 2022 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.car.carlauncher;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.mockito.Mockito.mock;
+
+import android.content.ComponentName;
+import android.graphics.drawable.Drawable;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+@RunWith(JUnit4.class)
+public class AppIconHandleTest {
+
+    private static final ComponentName COMPONENT =
+            new ComponentName("com.example.a", "com.example.a.MainActivity");
+    private static final long VERSION_CODE = 7;
+
+    @Test
+    public void peekDrawable_beforeLoad_doesNotInvokeLoader() {
+        AtomicInteger loads = new AtomicInteger();
+        AppIconHandle handle = new AppIconHandle(/* iconCache= */ null, COMPONENT, VERSION_CODE,
+                () -> {
+                    loads.incrementAndGet();
+                    return mock(Drawable.class);
+                });
+
+        assertNull(handle.peekDrawable());
+        assertEquals(0, loads.get());
+    }
+
+    @Test
+    public void load_withoutCache_loadsOnceAndKeepsResult() {
+        Drawable icon = mock(Drawable.class);
+        AtomicInteger loads = new AtomicInteger();
+        AppIconHandle handle = new AppIconHandle(/* iconCache= */ null, COMPONENT, VERSION_CODE,
+                () -> {
+                    loads.incrementAndGet();
+                    return icon;
+                });
+
+        assertSame(icon, handle.load());
+        assertSame(icon, handle.load());
+        assertSame(icon, handle.peekDrawable());
+        assertEquals(1, loads.get());
+    }
+
+    @Test
+    public void load_withoutCacheOrLoader_returnsNull() {
+        AppIconHandle handle = new AppIconHandle(/* iconCache= */ null, COMPONENT, VERSION_CODE,
+                /* loader= */ null);
+
+        assertNull(handle.load());
+    }
+}
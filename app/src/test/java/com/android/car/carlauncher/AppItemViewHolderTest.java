@@ -0,0 +1,155 @@
+/*
+ * Copyright (C) 2022 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.car.carlauncher;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertSame;
+
+import android.content.ComponentName;
+import android.content.Context;
+import android.graphics.Color;
+import android.graphics.drawable.BitmapDrawable;
+import android.graphics.drawable.ColorDrawable;
+import android.os.Debug;
+import android.view.LayoutInflater;
+import android.view.View;
+import android.widget.ImageView;
+
+import androidx.test.core.app.ApplicationProvider;
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+import androidx.test.filters.SmallTest;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.junit.runner.RunWith;
+
+@RunWith(AndroidJUnit4.class)
+@SmallTest
+public class AppItemViewHolderTest {
+
+    private static final int WARM_UP_BINDS = 10;
+    private static final int MEASURED_BINDS = 200;
+    private static final int ICON_CACHE_BYTES = 1024 * 1024;
+
+    @Rule
+    public final TemporaryFolder mTemporaryFolder = new TemporaryFolder();
+
+    private Context mContext;
+    private AppItemViewHolder mHolder;
+    private AppMetaData mOptimizedApp;
+    private AppMetaData mUnoptimizedApp;
+
+    @Before
+    public void setUp() {
+        mContext = ApplicationProvider.getApplicationContext();
+        View view = LayoutInflater.from(mContext).inflate(R.layout.app_item, /* root= */ null);
+        mHolder = new AppItemViewHolder(view, mContext,
+                new AppItemViewHolder.BindingResources(mContext.getResources()));
+        // The production path: icons come from a warmed AppIconCache, not from the handle.
+        AppIconCache iconCache = new AppIconCache(mContext.getResources(),
+                mTemporaryFolder.getRoot(), ICON_CACHE_BYTES);
+        mOptimizedApp = createApp(iconCache, "com.example.a",
+                /* isDistractionOptimized= */ true);
+        mUnoptimizedApp = createApp(iconCache, "com.example.b",
+                /* isDistractionOptimized= */ false);
+    }
+
+    @Test
+    public void bind_iconCacheHit_showsCachedBitmap() {
+        mHolder.bind(mOptimizedApp, /* isDistractionOptimizationRequired= */ true);
+
+        ImageView iconView = mHolder.itemView.findViewById(R.id.app_icon);
+        assertNotNull(mOptimizedApp.getIcon().peekBitmap());
+        assertSame(mOptimizedApp.getIcon().peekBitmap(),
+                ((BitmapDrawable) iconView.getDrawable()).getBitmap());
+    }
+
+    @Test
+    public void bind_steadyState_doesNotAllocate() {
+        // Warm up lazily created view state, e.g. the transformation info behind setAlpha
+        // and the BitmapDrawable that ImageView reuses for setImageBitmap.
+        bindAlternately(WARM_UP_BINDS);
+
+        Debug.startAllocCounting();
+        try {
+            Debug.resetThreadAllocCount();
+            bindAlternately(MEASURED_BINDS);
+            assertEquals(0, Debug.getThreadAllocCount());
+        } finally {
+            Debug.stopAllocCounting();
+        }
+    }
+
+    @Test
+    public void bind_withoutIconCache_doesNotAllocate() {
+        mOptimizedApp = createApp(/* iconCache= */ null, "com.example.a",
+                /* isDistractionOptimized= */ true);
+        mUnoptimizedApp = createApp(/* iconCache= */ null, "com.example.b",
+                /* isDistractionOptimized= */ false);
+        bindAlternately(WARM_UP_BINDS);
+
+        Debug.startAllocCounting();
+        try {
+            Debug.resetThreadAllocCount();
+            bindAlternately(MEASURED_BINDS);
+            assertEquals(0, Debug.getThreadAllocCount());
+        } finally {
+            Debug.stopAllocCounting();
+        }
+    }
+
+    @Test
+    public void updateDistractionOptimizationRequired_doesNotAllocate() {
+        mHolder.bind(mUnoptimizedApp, /* isDistractionOptimizationRequired= */ false);
+        mHolder.updateDistractionOptimizationRequired(true);
+        mHolder.updateDistractionOptimizationRequired(false);
+
+        Debug.startAllocCounting();
+        try {
+            Debug.resetThreadAllocCount();
+            for (int i = 0; i < MEASURED_BINDS; i++) {
+                mHolder.updateDistractionOptimizationRequired(i % 2 == 0);
+            }
+            assertEquals(0, Debug.getThreadAllocCount());
+        } finally {
+            Debug.stopAllocCounting();
+        }
+    }
+
+    private void bindAlternately(int count) {
+        for (int i = 0; i < count; i++) {
+            // As AppGridAdapter.onBindViewHolder does before every bind.
+            mHolder.setHostContext(mContext);
+            mHolder.bind(i % 2 == 0 ? mOptimizedApp : mUnoptimizedApp,
+                    /* isDistractionOptimizationRequired= */ true);
+        }
+    }
+
+    private static AppMetaData createApp(AppIconCache iconCache, String packageName,
+            boolean isDistractionOptimized) {
+        ComponentName componentName = new ComponentName(packageName, packageName + ".Main");
+        AppIconHandle icon = new AppIconHandle(iconCache, componentName,
+                /* versionCode= */ 1, () -> new ColorDrawable(Color.RED));
+        // Load up front so bind() finds the icon in memory, as it does while scrolling.
+        icon.load();
+        return AppLauncherUtils.createLauncherActivityMetaData(packageName, componentName,
+                /* versionCode= */ 1, icon, isDistractionOptimized);
+    }
+}
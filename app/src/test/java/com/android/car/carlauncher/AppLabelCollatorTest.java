@@ -0,0 +1,79 @@
+/*
+ * Copyright (C) 2022 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.car.carlauncher;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+import java.util.Locale;
+
+@RunWith(JUnit4.class)
+public class AppLabelCollatorTest {
+
+    private AppLabelCollator mCollator;
+    private Locale mOriginalLocale;
+
+    @Before
+    public void setUp() {
+        mCollator = AppLabelCollator.getInstance();
+        mOriginalLocale = Locale.getDefault();
+        mCollator.setLocale(Locale.US);
+    }
+
+    @After
+    public void tearDown() {
+        mCollator.setLocale(mOriginalLocale);
+    }
+
+    @Test
+    public void getCollationKey_ignoresCase() {
+        assertEquals(0, mCollator.getCollationKey("maps")
+                .compareTo(mCollator.getCollationKey("Maps")));
+        assertTrue(mCollator.getCollationKey("Maps")
+                .compareTo(mCollator.getCollationKey("news")) < 0);
+    }
+
+    @Test
+    public void getCollationKey_sameLocale_returnsCachedKey() {
+        assertSame(mCollator.getCollationKey("Maps"), mCollator.getCollationKey("Maps"));
+    }
+
+    @Test
+    public void setLocale_sameLocale_keepsGeneration() {
+        int generation = mCollator.getGeneration();
+
+        assertFalse(mCollator.setLocale(Locale.US));
+        assertEquals(generation, mCollator.getGeneration());
+    }
+
+    @Test
+    public void setLocale_newLocale_invalidatesKeys() {
+        int generation = mCollator.getGeneration();
+
+        assertTrue(mCollator.setLocale(Locale.SIMPLIFIED_CHINESE));
+        assertNotEquals(generation, mCollator.getGeneration());
+    }
+}
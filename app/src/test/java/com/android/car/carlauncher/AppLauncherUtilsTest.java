@@ -0,0 +1,113 @@
+/*
+ * Copyright (C) 2022 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.car.carlauncher;
+
+import static com.android.car.carlauncher.AppLauncherUtils.APP_TYPE_LAUNCHABLES;
+import static com.android.car.carlauncher.AppLauncherUtils.APP_TYPE_MEDIA_SERVICES;
+
+import static org.junit.Assert.assertEquals;
+
+import android.content.ComponentName;
+
+import com.android.car.carlauncher.AppLauncherUtils.LauncherAppsInfo;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+@RunWith(JUnit4.class)
+public class AppLauncherUtilsTest {
+
+    private static final ComponentName ACTIVITY =
+            new ComponentName("com.example.app", "com.example.app.MainActivity");
+    private static final ComponentName CUSTOM_MEDIA_SERVICE =
+            new ComponentName("com.example.app", "com.example.app.MediaService");
+    private static final ComponentName MEDIA_SERVICE =
+            new ComponentName("com.example.media", "com.example.media.MediaService");
+    private static final Set<String> CUSTOM_MEDIA_COMPONENTS =
+            Collections.singleton(CUSTOM_MEDIA_SERVICE.flattenToString());
+
+    private LauncherAppsInfo mAppsInfo;
+
+    @Before
+    public void setUp() {
+        Map<ComponentName, AppMetaData> launchables = new HashMap<>();
+        launchables.put(ACTIVITY, createApp(ACTIVITY));
+        launchables.put(CUSTOM_MEDIA_SERVICE, createApp(CUSTOM_MEDIA_SERVICE));
+        launchables.put(MEDIA_SERVICE, createApp(MEDIA_SERVICE));
+        Set<ComponentName> mediaServices = new HashSet<>();
+        mediaServices.add(CUSTOM_MEDIA_SERVICE);
+        mediaServices.add(MEDIA_SERVICE);
+        mAppsInfo = new LauncherAppsInfo(launchables, mediaServices, new HashMap<>(),
+                new HashMap<>());
+    }
+
+    @Test
+    public void filterLaunchables_allApps_hidesCustomMediaServices() {
+        List<AppMetaData> apps = AppLauncherUtils.filterLaunchables(mAppsInfo,
+                Collections.emptySet(), CUSTOM_MEDIA_COMPONENTS,
+                APP_TYPE_LAUNCHABLES | APP_TYPE_MEDIA_SERVICES);
+
+        assertEquals(toSet(ACTIVITY, MEDIA_SERVICE), toComponents(apps));
+    }
+
+    @Test
+    public void filterLaunchables_mediaOnly_keepsOnlyMediaServices() {
+        List<AppMetaData> apps = AppLauncherUtils.filterLaunchables(mAppsInfo,
+                Collections.emptySet(), CUSTOM_MEDIA_COMPONENTS, APP_TYPE_MEDIA_SERVICES);
+
+        assertEquals(toSet(CUSTOM_MEDIA_SERVICE, MEDIA_SERVICE), toComponents(apps));
+    }
+
+    @Test
+    public void filterLaunchables_hiddenPackage_isExcluded() {
+        List<AppMetaData> apps = AppLauncherUtils.filterLaunchables(mAppsInfo,
+                Collections.singleton(MEDIA_SERVICE.getPackageName()), CUSTOM_MEDIA_COMPONENTS,
+                APP_TYPE_LAUNCHABLES | APP_TYPE_MEDIA_SERVICES);
+
+        assertEquals(toSet(ACTIVITY), toComponents(apps));
+    }
+
+    private static AppMetaData createApp(ComponentName componentName) {
+        AppIconHandle icon = new AppIconHandle(/* iconCache= */ null, componentName,
+                /* versionCode= */ 1, /* loader= */ null);
+        return AppLauncherUtils.createLauncherActivityMetaData(componentName.getClassName(),
+                componentName, /* versionCode= */ 1, icon, /* isDistractionOptimized= */ true);
+    }
+
+    private static Set<ComponentName> toComponents(List<AppMetaData> apps) {
+        Set<ComponentName> components = new HashSet<>();
+        for (AppMetaData app : apps) {
+            components.add(app.getComponentName());
+        }
+        return components;
+    }
+
+    private static Set<ComponentName> toSet(ComponentName... componentNames) {
+        Set<ComponentName> components = new HashSet<>();
+        Collections.addAll(components, componentNames);
+        return components;
+    }
+}
@@ -21,14 +21,19 @@ import static androidx.test.espresso.assertion.ViewAssertions.matches;
 import static androidx.test.espresso.matcher.ViewMatchers.isDisplayed;
 import static androidx.test.espresso.matcher.ViewMatchers.withId;
 
+import static org.junit.Assert.assertTrue;
+
 import android.testing.TestableContext;
 
+import androidx.fragment.app.Fragment;
 import androidx.lifecycle.Lifecycle;
 import androidx.test.InstrumentationRegistry;
 import androidx.test.core.app.ActivityScenario;
 import androidx.test.ext.junit.runners.AndroidJUnit4;
 import androidx.test.filters.SmallTest;
 
+import com.android.car.carlauncher.homescreen.HomeCardFragment;
+
 import org.junit.After;
 import org.junit.Rule;
 import org.junit.Test;
@@ -72,4 +77,31 @@ public class CarLauncherTest {
 
         onView(withId(R.id.bottom_card)).check(matches(isDisplayed()));
     }
+
+    @Test
+    public void recreate_restoredCards_areReplacedAndVisible() {
+        mActivityScenario = ActivityScenario.launch(CarLauncher.class);
+        mActivityScenario.moveToState(Lifecycle.State.RESUMED);
+
+        // Simulates a locale/density/size change: the restored card fragments have no presenter
+        // and must not crash or stay attached in place of the freshly prepared cards.
+        mActivityScenario.recreate();
+        mActivityScenario.moveToState(Lifecycle.State.RESUMED);
+        InstrumentationRegistry.getInstrumentation().waitForIdleSync();
+
+        // Only cards bound to a presenter get a click listener on their root view.
+        boolean[] allCardsBound = new boolean[1];
+        mActivityScenario.onActivity(activity -> {
+            allCardsBound[0] = true;
+            for (Fragment fragment : activity.getSupportFragmentManager().getFragments()) {
+                if (fragment instanceof HomeCardFragment && (fragment.getView() == null
+                        || !fragment.getView().hasOnClickListeners())) {
+                    allCardsBound[0] = false;
+                }
+            }
+        });
+        assertTrue(allCardsBound[0]);
+        onView(withId(R.id.top_card)).check(matches(isDisplayed()));
+        onView(withId(R.id.bottom_card)).check(matches(isDisplayed()));
+    }
 }
@@ -0,0 +1,111 @@
+/*
+ * Copyright (C) 2022 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.car.carlauncher;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import android.content.ComponentName;
+import android.content.pm.PackageInfo;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+import java.io.File;
+import java.io.PrintWriter;
+import java.io.StringWriter;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+@RunWith(JUnit4.class)
+public class DistractionOptimizationCacheTest {
+
+    private static final ComponentName KEPT =
+            new ComponentName("com.example.kept", "com.example.kept.MainActivity");
+    private static final ComponentName UNINSTALLED =
+            new ComponentName("com.example.gone", "com.example.gone.MainActivity");
+
+    @Rule
+    public final TemporaryFolder mTemporaryFolder = new TemporaryFolder();
+
+    // Components passed to the lookup, one per cache miss.
+    private final List<ComponentName> mLookups = new ArrayList<>();
+    private final DistractionOptimizationCache.Lookup mLookup = componentName -> {
+        mLookups.add(componentName);
+        return componentName.equals(KEPT);
+    };
+
+    private File mFile;
+
+    @Before
+    public void setUp() {
+        mFile = new File(mTemporaryFolder.getRoot(), "do_cache");
+    }
+
+    @Test
+    public void isActivityDistractionOptimized_unchangedPackage_servedFromDisk() {
+        DistractionOptimizationCache cache = new DistractionOptimizationCache(mFile);
+        cache.isActivityDistractionOptimized(mLookup, KEPT, packageInfo(KEPT));
+        cache.persist();
+
+        DistractionOptimizationCache reloaded = new DistractionOptimizationCache(mFile);
+        assertTrue(reloaded.isActivityDistractionOptimized(mLookup, KEPT, packageInfo(KEPT)));
+
+        assertEquals(Collections.singletonList(KEPT), mLookups);
+    }
+
+    @Test
+    public void retainComponents_prunesMissingComponentsFromDisk() {
+        DistractionOptimizationCache cache = new DistractionOptimizationCache(mFile);
+        cache.isActivityDistractionOptimized(mLookup, KEPT, packageInfo(KEPT));
+        cache.isActivityDistractionOptimized(mLookup, UNINSTALLED, packageInfo(UNINSTALLED));
+        cache.persist();
+
+        // A later full scan no longer finds UNINSTALLED, e.g. it was removed while the
+        // process was dead.
+        DistractionOptimizationCache reloaded = new DistractionOptimizationCache(mFile);
+        reloaded.retainComponents(Collections.singleton(KEPT));
+        reloaded.persist();
+        assertTrue(dump(reloaded).contains("entries=1"));
+
+        DistractionOptimizationCache pruned = new DistractionOptimizationCache(mFile);
+        pruned.isActivityDistractionOptimized(mLookup, KEPT, packageInfo(KEPT));
+        pruned.isActivityDistractionOptimized(mLookup, UNINSTALLED, packageInfo(UNINSTALLED));
+
+        assertEquals(Arrays.asList(KEPT, UNINSTALLED, UNINSTALLED), mLookups);
+    }
+
+    private static PackageInfo packageInfo(ComponentName componentName) {
+        PackageInfo packageInfo = new PackageInfo();
+        packageInfo.packageName = componentName.getPackageName();
+        packageInfo.setLongVersionCode(1);
+        packageInfo.lastUpdateTime = 100;
+        return packageInfo;
+    }
+
+    private static String dump(DistractionOptimizationCache cache) {
+        StringWriter writer = new StringWriter();
+        cache.dump("", new PrintWriter(writer));
+        return writer.toString();
+    }
+}
@@ -0,0 +1,98 @@
+/*
+ * Copyright (C) 2022 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.car.carlauncher;
+
+import static org.junit.Assert.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+
+import android.os.Looper;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+
+@RunWith(JUnit4.class)
+public class PackageChangeCoalescerTest {
+
+    private static final String PACKAGE_A = "com.example.a";
+    private static final String PACKAGE_B = "com.example.b";
+    // Long enough that only explicit flush() calls trigger a refresh during the test.
+    private static final long WINDOW_MS = 60_000;
+
+    @Mock
+    private PackageChangeCoalescer.Listener mListener;
+
+    private PackageChangeCoalescer mCoalescer;
+
+    @Before
+    public void setUp() {
+        MockitoAnnotations.initMocks(this);
+        mCoalescer = new PackageChangeCoalescer(Looper.getMainLooper(), WINDOW_MS, mListener);
+    }
+
+    @Test
+    public void flush_duplicatePackages_collapsedIntoOneRefresh() {
+        mCoalescer.onPackageChanged(PACKAGE_A, /* removed= */ false);
+        mCoalescer.onPackageChanged(PACKAGE_A, /* removed= */ false);
+        mCoalescer.onPackageChanged(PACKAGE_B, /* removed= */ false);
+
+        mCoalescer.flush();
+
+        verify(mListener).onPackagesChanged(
+                new HashSet<>(Arrays.asList(PACKAGE_A, PACKAGE_B)), Collections.emptySet());
+        assertEquals(3, mCoalescer.getBroadcastsReceived());
+        assertEquals(1, mCoalescer.getRefreshesExecuted());
+    }
+
+    @Test
+    public void flush_removedAfterUpdate_reportsRemoved() {
+        mCoalescer.onPackageChanged(PACKAGE_A, /* removed= */ false);
+        mCoalescer.onPackageChanged(PACKAGE_A, /* removed= */ true);
+
+        mCoalescer.flush();
+
+        verify(mListener).onPackagesChanged(Collections.emptySet(),
+                Collections.singleton(PACKAGE_A));
+    }
+
+    @Test
+    public void flush_noPendingChanges_doesNotRefresh() {
+        mCoalescer.flush();
+
+        verify(mListener, never()).onPackagesChanged(any(), any());
+        assertEquals(0, mCoalescer.getRefreshesExecuted());
+    }
+
+    @Test
+    public void cancel_dropsPendingChanges() {
+        mCoalescer.onPackageChanged(PACKAGE_A, /* removed= */ false);
+
+        mCoalescer.cancel();
+        mCoalescer.flush();
+
+        verify(mListener, never()).onPackagesChanged(any(), any());
+    }
+}
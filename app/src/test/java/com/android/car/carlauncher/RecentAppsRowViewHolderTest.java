@@ -0,0 +1,116 @@
+/*
+ * Copyright (C) 2022 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.car.carlauncher;
+
+import static com.android.car.carlauncher.AppGridAdapterTest.createApp;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import android.content.Context;
+import android.view.LayoutInflater;
+import android.view.View;
+import android.view.ViewGroup;
+import android.widget.TextView;
+
+import androidx.test.core.app.ApplicationProvider;
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+import androidx.test.filters.SmallTest;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+@RunWith(AndroidJUnit4.class)
+@SmallTest
+public class RecentAppsRowViewHolderTest {
+
+    private int mColumnNumber;
+    private RecentAppsRowViewHolder mHolder;
+    private ViewGroup mRow;
+
+    @Before
+    public void setUp() {
+        Context context = ApplicationProvider.getApplicationContext();
+        mColumnNumber = context.getResources().getInteger(
+                R.integer.car_app_selector_column_number);
+        View view = LayoutInflater.from(context).inflate(R.layout.recent_apps_row,
+                /* root= */ null);
+        mHolder = new RecentAppsRowViewHolder(view, context,
+                new AppItemViewHolder.BindingResources(context.getResources()));
+        mRow = view.findViewById(R.id.recent_apps_row);
+    }
+
+    @Test
+    public void bind_fewerAppsThanColumns_hidesEmptySlots() {
+        assertTrue(mColumnNumber > 1);
+
+        mHolder.bind(Arrays.asList(createApp("com.example.a", "A", true)),
+                /* isDistractionOptimizationRequired= */ false);
+
+        assertEquals(mColumnNumber, mRow.getChildCount());
+        assertEquals(View.VISIBLE, mRow.getChildAt(0).getVisibility());
+        assertEquals("A", getName(0));
+        for (int i = 1; i < mColumnNumber; i++) {
+            // Invisible rather than gone, so the slot still takes up its column.
+            assertEquals(View.INVISIBLE, mRow.getChildAt(i).getVisibility());
+        }
+    }
+
+    @Test
+    public void bind_again_reusesItemViewsInPlace() {
+        List<AppMetaData> apps = new ArrayList<>();
+        for (int i = 0; i < mColumnNumber + 1; i++) {
+            apps.add(createApp("com.example.app" + i, "App " + i, true));
+        }
+        mHolder.bind(apps, /* isDistractionOptimizationRequired= */ false);
+        List<View> itemViews = new ArrayList<>();
+        for (int i = 0; i < mRow.getChildCount(); i++) {
+            itemViews.add(mRow.getChildAt(i));
+            assertEquals(View.VISIBLE, mRow.getChildAt(i).getVisibility());
+        }
+
+        mHolder.bind(apps.subList(1, 2), /* isDistractionOptimizationRequired= */ false);
+
+        assertEquals(mColumnNumber, mRow.getChildCount());
+        for (int i = 0; i < mColumnNumber; i++) {
+            assertSame(itemViews.get(i), mRow.getChildAt(i));
+        }
+        assertEquals("App 1", getName(0));
+        assertEquals(View.INVISIBLE, mRow.getChildAt(1).getVisibility());
+        assertEquals("", getName(1));
+    }
+
+    @Test
+    public void bind_null_hidesEverySlot() {
+        mHolder.bind(/* apps= */ null, /* isDistractionOptimizationRequired= */ false);
+
+        for (int i = 0; i < mColumnNumber; i++) {
+            assertEquals(View.INVISIBLE, mRow.getChildAt(i).getVisibility());
+        }
+    }
+
+    private String getName(int slot) {
+        return ((TextView) mRow.getChildAt(slot).findViewById(R.id.app_name)).getText()
+                .toString();
+    }
+}
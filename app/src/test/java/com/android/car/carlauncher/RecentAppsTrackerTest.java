@@ -0,0 +1,208 @@
+/*
+ * Copyright (C) 2022 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.car.carlauncher;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import android.app.usage.UsageEvents;
+
+import androidx.annotation.NonNull;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+@RunWith(JUnit4.class)
+public class RecentAppsTrackerTest {
+
+    private static final String PACKAGE_A = "com.example.a";
+    private static final String PACKAGE_B = "com.example.b";
+    private static final String PACKAGE_C = "com.example.c";
+    private static final int MAX_ENTRIES = 3;
+    private static final long BOOTSTRAP_TIME = 10_000;
+
+    @Rule
+    public final TemporaryFolder mTemporaryFolder = new TemporaryFolder();
+
+    @Mock
+    private RecentAppsTracker.Callback mCallback;
+
+    private final FakeUsageSource mUsageSource = new FakeUsageSource();
+    private File mFile;
+    private long mNow = BOOTSTRAP_TIME;
+
+    @Before
+    public void setUp() {
+        MockitoAnnotations.initMocks(this);
+        mFile = new File(mTemporaryFolder.getRoot(), "recent_apps");
+        mUsageSource.mYearlyUsage.add(packageUsage(PACKAGE_A, 100, /* foregroundTime= */ 10));
+        mUsageSource.mYearlyUsage.add(packageUsage(PACKAGE_B, 200, /* foregroundTime= */ 0));
+        // Yearly stats may report one package in several intervals.
+        mUsageSource.mYearlyUsage.add(packageUsage(PACKAGE_A, 50, /* foregroundTime= */ 0));
+    }
+
+    @Test
+    public void update_firstRun_bootstrapsFromYearlyStats() {
+        List<RecentAppsTracker.RecentApp> recentApps = createTracker().update();
+
+        assertPackages(recentApps, PACKAGE_B, PACKAGE_A);
+        assertEquals(100, recentApps.get(1).mLastTimeUsed);
+        assertTrue(recentApps.get(1).mUsedInForeground);
+        assertFalse(recentApps.get(0).mUsedInForeground);
+        assertEquals(0, mUsageSource.mEventQueries.size());
+    }
+
+    @Test
+    public void update_afterCheckpoint_mergesOnlyNewEvents() {
+        RecentAppsTracker tracker = createTracker();
+        tracker.update();
+        mNow = BOOTSTRAP_TIME + 1_000;
+        mUsageSource.mEvents.add(event(UsageEvents.Event.ACTIVITY_RESUMED, PACKAGE_A, 10_500));
+        mUsageSource.mEvents.add(event(UsageEvents.Event.ACTIVITY_PAUSED, PACKAGE_C, 10_400));
+
+        List<RecentAppsTracker.RecentApp> recentApps = tracker.update();
+
+        assertEquals(Arrays.asList(BOOTSTRAP_TIME, BOOTSTRAP_TIME + 1_000),
+                mUsageSource.mEventQueries);
+        assertEquals(1, mUsageSource.mYearlyQueries);
+        assertPackages(recentApps, PACKAGE_A, PACKAGE_C, PACKAGE_B);
+        assertEquals(10_500, recentApps.get(0).mLastTimeUsed);
+        assertFalse(recentApps.get(1).mUsedInForeground);
+    }
+
+    @Test
+    public void update_foregroundServiceEvents_areNotUsage() {
+        RecentAppsTracker tracker = createTracker();
+        tracker.update();
+        mNow = BOOTSTRAP_TIME + 1_000;
+        mUsageSource.mEvents.add(event(UsageEvents.Event.FOREGROUND_SERVICE_START, PACKAGE_A,
+                10_500));
+        mUsageSource.mEvents.add(event(UsageEvents.Event.FOREGROUND_SERVICE_STOP, PACKAGE_C,
+                10_600));
+
+        List<RecentAppsTracker.RecentApp> recentApps = tracker.update();
+
+        // Same result as the bootstrap path, which only sees activity usage.
+        assertPackages(recentApps, PACKAGE_B, PACKAGE_A);
+        assertEquals(100, recentApps.get(1).mLastTimeUsed);
+    }
+
+    @Test
+    public void update_moreThanMaxEntries_keepsMostRecent() {
+        RecentAppsTracker tracker = createTracker();
+        tracker.update();
+        mNow = BOOTSTRAP_TIME + 1_000;
+        mUsageSource.mEvents.add(event(UsageEvents.Event.ACTIVITY_RESUMED, PACKAGE_C, 10_100));
+        mUsageSource.mEvents.add(event(UsageEvents.Event.ACTIVITY_RESUMED, "com.example.d",
+                10_200));
+
+        List<RecentAppsTracker.RecentApp> recentApps = tracker.update();
+
+        assertPackages(recentApps, "com.example.d", PACKAGE_C, PACKAGE_B);
+        // The trimmed package does not come back once later events no longer mention it.
+        mNow = BOOTSTRAP_TIME + 2_000;
+        mUsageSource.mEvents.clear();
+        assertPackages(tracker.update(), "com.example.d", PACKAGE_C, PACKAGE_B);
+    }
+
+    @Test
+    public void update_newInstance_resumesFromPersistedCheckpoint() {
+        createTracker().update();
+        mNow = BOOTSTRAP_TIME + 1_000;
+        mUsageSource.mEvents.add(event(UsageEvents.Event.ACTIVITY_STOPPED, PACKAGE_C, 10_300));
+
+        List<RecentAppsTracker.RecentApp> recentApps = createTracker().update();
+
+        assertEquals(1, mUsageSource.mYearlyQueries);
+        assertEquals(Arrays.asList(BOOTSTRAP_TIME, BOOTSTRAP_TIME + 1_000),
+                mUsageSource.mEventQueries);
+        assertPackages(recentApps, PACKAGE_C, PACKAGE_B, PACKAGE_A);
+    }
+
+    @Test
+    public void update_clockRolledBack_bootstrapsAgain() {
+        RecentAppsTracker tracker = createTracker();
+        tracker.update();
+        mNow = BOOTSTRAP_TIME - 1_000;
+
+        tracker.update();
+
+        assertEquals(2, mUsageSource.mYearlyQueries);
+        assertEquals(0, mUsageSource.mEventQueries.size());
+    }
+
+    private RecentAppsTracker createTracker() {
+        return new RecentAppsTracker(Runnable::run, mCallback, mUsageSource, mFile,
+                MAX_ENTRIES, () -> mNow);
+    }
+
+    private static RecentAppsTracker.UsageEvent event(int type, String packageName,
+            long timeStamp) {
+        return new RecentAppsTracker.UsageEvent(packageName, timeStamp, type);
+    }
+
+    private static RecentAppsTracker.PackageUsage packageUsage(String packageName,
+            long lastTimeUsed, long foregroundTime) {
+        return new RecentAppsTracker.PackageUsage(packageName, lastTimeUsed, foregroundTime);
+    }
+
+    private static void assertPackages(List<RecentAppsTracker.RecentApp> recentApps,
+            String... packageNames) {
+        List<String> actual = new ArrayList<>();
+        for (RecentAppsTracker.RecentApp app : recentApps) {
+            actual.add(app.mPackageName);
+        }
+        assertEquals(Arrays.asList(packageNames), actual);
+    }
+
+    private static final class FakeUsageSource implements RecentAppsTracker.UsageSource {
+        // Events returned by every queryEvents call.
+        final List<RecentAppsTracker.UsageEvent> mEvents = new ArrayList<>();
+        final List<RecentAppsTracker.PackageUsage> mYearlyUsage = new ArrayList<>();
+        // Begin and end time of each queryEvents call, flattened.
+        final List<Long> mEventQueries = new ArrayList<>();
+        int mYearlyQueries;
+
+        @NonNull
+        @Override
+        public List<RecentAppsTracker.UsageEvent> queryEvents(long beginTime, long endTime) {
+            mEventQueries.add(beginTime);
+            mEventQueries.add(endTime);
+            return new ArrayList<>(mEvents);
+        }
+
+        @NonNull
+        @Override
+        public List<RecentAppsTracker.PackageUsage> queryYearlyUsage(long beginTime,
+                long endTime) {
+            mYearlyQueries++;
+            return new ArrayList<>(mYearlyUsage);
+        }
+    }
+}
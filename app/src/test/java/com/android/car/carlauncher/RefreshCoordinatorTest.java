@@ -0,0 +1,74 @@
+/*
+ * Copyright (C) 2022 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.car.carlauncher;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+@RunWith(JUnit4.class)
+public class RefreshCoordinatorTest {
+
+    private final List<Integer> mStartedScans = new ArrayList<>();
+    private RefreshCoordinator mCoordinator;
+
+    @Before
+    public void setUp() {
+        mCoordinator = new RefreshCoordinator(mStartedScans::add);
+    }
+
+    @Test
+    public void requestRefresh_idle_startsScanImmediately() {
+        int generation = mCoordinator.requestRefresh();
+
+        assertEquals(Arrays.asList(generation), mStartedScans);
+        assertTrue(mCoordinator.onScanFinished(generation));
+        assertEquals(0, mCoordinator.getAvoidedScans());
+    }
+
+    @Test
+    public void requestRefresh_whileInFlight_mergesIntoOneFollowUpScan() {
+        int first = mCoordinator.requestRefresh();
+        mCoordinator.requestRefresh();
+        mCoordinator.requestRefresh();
+        int latest = mCoordinator.requestRefresh();
+
+        assertEquals(Arrays.asList(first), mStartedScans);
+        // The in-flight result predates the newer requests and is dropped.
+        assertFalse(mCoordinator.onScanFinished(first));
+        assertEquals(Arrays.asList(first, latest), mStartedScans);
+        assertTrue(mCoordinator.onScanFinished(latest));
+        assertFalse(mCoordinator.isRefreshing());
+        assertEquals(2, mCoordinator.getAvoidedScans());
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void onScanFinished_unknownGeneration_throws() {
+        int generation = mCoordinator.requestRefresh();
+
+        mCoordinator.onScanFinished(generation + 1);
+    }
+}
@@ -0,0 +1,91 @@
+/*
+ * Copyright (C) 2022 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.car.carlauncher;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+import java.io.PrintWriter;
+import java.io.StringWriter;
+import java.util.Arrays;
+
+@RunWith(JUnit4.class)
+public class StartupTimelineTest {
+
+    private StartupTimeline mTimeline;
+
+    @Before
+    public void setUp() {
+        mTimeline = new StartupTimeline();
+        mTimeline.start();
+    }
+
+    @Test
+    public void sections_recordedInStartOrder() {
+        mTimeline.beginSection("outer");
+        mTimeline.beginAsyncSection("async");
+        mTimeline.beginSection("inner");
+        mTimeline.endSection("inner");
+        mTimeline.endSection("outer");
+
+        // The async section is still running.
+        assertEquals(Arrays.asList("outer", "inner"), mTimeline.getCompletedPhases());
+
+        mTimeline.endAsyncSection("async");
+        assertEquals(Arrays.asList("outer", "async", "inner"), mTimeline.getCompletedPhases());
+    }
+
+    @Test
+    public void repeatedPhase_keepsFirstOccurrence() {
+        mTimeline.mark("event");
+        mTimeline.beginSection("phase");
+        mTimeline.endSection("phase");
+        mTimeline.beginSection("phase");
+        mTimeline.endSection("phase");
+        mTimeline.mark("event");
+
+        assertEquals(Arrays.asList("event", "phase"), mTimeline.getCompletedPhases());
+    }
+
+    @Test
+    public void start_clearsPreviousTimeline() {
+        mTimeline.mark("event");
+
+        mTimeline.start();
+
+        assertTrue(mTimeline.getCompletedPhases().isEmpty());
+    }
+
+    @Test
+    public void dump_listsEveryPhase() {
+        mTimeline.beginSection("finished");
+        mTimeline.endSection("finished");
+        mTimeline.beginAsyncSection("pending");
+
+        StringWriter output = new StringWriter();
+        mTimeline.dump("", new PrintWriter(output));
+
+        String dump = output.toString();
+        assertTrue(dump, dump.contains("finished"));
+        assertTrue(dump, dump.contains("running"));
+    }
+}
@@ -16,11 +16,19 @@
 
 package com.android.car.carlauncher.homescreen;
 
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
 import static org.mockito.Mockito.any;
+import static org.mockito.Mockito.inOrder;
 import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyZeroInteractions;
 import static org.mockito.Mockito.when;
 
+import androidx.annotation.NonNull;
+import androidx.fragment.app.Fragment;
+
 import com.android.car.carlauncher.homescreen.ui.CardHeader;
 import com.android.car.carlauncher.homescreen.ui.DescriptiveTextView;
 
@@ -28,9 +36,13 @@ import org.junit.Before;
 import org.junit.Test;
 import org.junit.runner.RunWith;
 import org.junit.runners.JUnit4;
+import org.mockito.InOrder;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
 
+import java.io.PrintWriter;
+import java.io.StringWriter;
+import java.util.ArrayList;
 import java.util.List;
 
 @RunWith(JUnit4.class)
@@ -39,6 +51,8 @@ public class CardPresenterTest {
     private static final CardHeader CARD_HEADER = new CardHeader("appName", /* cardIcon = */ null);
     private static final DescriptiveTextView CARD_CONTENT = new DescriptiveTextView(/* image = */
             null, "title", "subtitle");
+    private static final DescriptiveTextView OTHER_CARD_CONTENT = new DescriptiveTextView(
+            /* image = */ null, "other title", "other subtitle");
 
     private CardPresenter mPresenter;
 
@@ -46,6 +60,8 @@ public class CardPresenterTest {
     private HomeCardInterface.View mView;
     @Mock
     private HomeCardInterface.Model mModel;
+    @Mock
+    private Fragment mFragment;
 
     @Before
     public void setUp() {
@@ -61,9 +77,14 @@ public class CardPresenterTest {
 
             @Override
             public void onViewDestroyed() {
+                super.onViewDestroyed();
             }
         };
+        when(mView.getFragment()).thenReturn(mFragment);
+        when(mFragment.isAdded()).thenReturn(true);
         mPresenter.setView(mView);
+        // Apply updates immediately instead of on the next frame.
+        mPresenter.setFrameScheduler(Runnable::run);
     }
 
     @Test
@@ -105,4 +126,110 @@ public class CardPresenterTest {
         verify(mView).hideCard();
         verify(mView, never()).updateContentView(CARD_CONTENT);
     }
+
+    @Test
+    public void onModelUpdated_burstWithinFrame_appliesLatestOnce() {
+        List<Runnable> frames = new ArrayList<>();
+        mPresenter.setFrameScheduler(frames::add);
+        when(mModel.getCardHeader()).thenReturn(CARD_HEADER);
+        when(mModel.getCardContent()).thenReturn(CARD_CONTENT);
+        mPresenter.onModelUpdated(mModel);
+        when(mModel.getCardContent()).thenReturn(OTHER_CARD_CONTENT);
+        mPresenter.onModelUpdated(mModel);
+        mPresenter.onModelUpdated(mModel);
+
+        assertEquals(1, frames.size());
+        verifyZeroInteractions(mView);
+
+        frames.get(0).run();
+
+        verify(mView).updateHeaderView(CARD_HEADER);
+        verify(mView).updateContentView(OTHER_CARD_CONTENT);
+        verify(mView, never()).updateContentView(CARD_CONTENT);
+        assertTrue(dump().contains("updatesReceived=3, framesRendered=1"));
+    }
+
+    @Test
+    public void onModelUpdated_hideThenShowWithinFrame_hidesBeforeShowing() {
+        List<Runnable> frames = new ArrayList<>();
+        mPresenter.setFrameScheduler(frames::add);
+        mPresenter.onModelUpdated(null);
+        when(mModel.getCardHeader()).thenReturn(CARD_HEADER);
+        when(mModel.getCardContent()).thenReturn(null);
+        mPresenter.onModelUpdated(mModel);
+
+        frames.get(0).run();
+
+        InOrder inOrder = inOrder(mView);
+        inOrder.verify(mView).hideCard();
+        inOrder.verify(mView).updateHeaderView(CARD_HEADER);
+        verify(mView, never()).updateContentView(any());
+    }
+
+    @Test
+    public void onViewDestroyed_pendingFrame_cancelsAndDropsPendingState() {
+        RecordingFrameScheduler scheduler = new RecordingFrameScheduler();
+        mPresenter.setFrameScheduler(scheduler);
+        when(mModel.getCardHeader()).thenReturn(CARD_HEADER);
+        when(mModel.getCardContent()).thenReturn(CARD_CONTENT);
+        mPresenter.onModelUpdated(mModel);
+
+        mPresenter.onViewDestroyed();
+
+        assertEquals(1, scheduler.mCancelled.size());
+        assertSame(scheduler.mScheduled.get(0), scheduler.mCancelled.get(0));
+        // A frame that was already dispatched still runs but has nothing to apply.
+        scheduler.mScheduled.get(0).run();
+        verifyZeroInteractions(mView);
+    }
+
+    @Test
+    public void onViewDestroyed_laterUpdate_schedulesNewFrame() {
+        RecordingFrameScheduler scheduler = new RecordingFrameScheduler();
+        mPresenter.setFrameScheduler(scheduler);
+        when(mModel.getCardHeader()).thenReturn(CARD_HEADER);
+        when(mModel.getCardContent()).thenReturn(CARD_CONTENT);
+        mPresenter.onModelUpdated(mModel);
+        mPresenter.onViewDestroyed();
+
+        mPresenter.onModelUpdated(mModel);
+
+        assertEquals(2, scheduler.mScheduled.size());
+    }
+
+    @Test
+    public void renderFrame_fragmentNotAdded_skipsView() {
+        when(mFragment.isAdded()).thenReturn(false);
+        when(mModel.getCardHeader()).thenReturn(CARD_HEADER);
+        when(mModel.getCardContent()).thenReturn(CARD_CONTENT);
+
+        mPresenter.onModelUpdated(mModel);
+        mPresenter.onModelUpdated(null);
+
+        verify(mView, never()).updateHeaderView(any());
+        verify(mView, never()).updateContentView(any());
+        verify(mView, never()).hideCard();
+        assertTrue(dump().contains("updatesReceived=2, framesRendered=0"));
+    }
+
+    private static class RecordingFrameScheduler implements CardPresenter.FrameScheduler {
+        final List<Runnable> mScheduled = new ArrayList<>();
+        final List<Runnable> mCancelled = new ArrayList<>();
+
+        @Override
+        public void scheduleFrame(@NonNull Runnable frame) {
+            mScheduled.add(frame);
+        }
+
+        @Override
+        public void cancelFrame(@NonNull Runnable frame) {
+            mCancelled.add(frame);
+        }
+    }
+
+    private String dump() {
+        StringWriter output = new StringWriter();
+        mPresenter.dump("", new PrintWriter(output));
+        return output.toString();
+    }
 }
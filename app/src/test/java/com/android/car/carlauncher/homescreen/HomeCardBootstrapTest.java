@@ -0,0 +1,111 @@
+/*
+ * Copyright (C) 2022 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.car.carlauncher.homescreen;
+
+import static org.junit.Assert.assertEquals;
+import static org.mockito.Mockito.any;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import android.content.Context;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+import org.mockito.InOrder;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+@RunWith(JUnit4.class)
+public class HomeCardBootstrapTest {
+
+    private final List<Runnable> mWorkerTasks = new ArrayList<>();
+    private final List<Runnable> mMainTasks = new ArrayList<>();
+    private HomeCardBootstrap mBootstrap;
+
+    @Mock
+    private Context mContext;
+    @Mock
+    private HomeCardInterface.Model mFirstModel;
+    @Mock
+    private HomeCardInterface.Model mSecondModel;
+    @Mock
+    private Runnable mOnPrepared;
+
+    @Before
+    public void setUp() {
+        MockitoAnnotations.initMocks(this);
+        mBootstrap = new HomeCardBootstrap(mWorkerTasks::add, mMainTasks::add);
+    }
+
+    @Test
+    public void prepare_runsEveryModelOnWorkers_thenCallsBackOnMain() {
+        mBootstrap.prepare(mContext, Arrays.asList(createModule(mFirstModel),
+                createModule(mSecondModel)), mOnPrepared);
+
+        // Each model gets its own worker task so they can run concurrently.
+        assertEquals(2, mWorkerTasks.size());
+        mWorkerTasks.get(0).run();
+        assertEquals(0, mMainTasks.size());
+        mWorkerTasks.get(1).run();
+        assertEquals(1, mMainTasks.size());
+        mMainTasks.get(0).run();
+
+        InOrder inOrder = inOrder(mFirstModel, mSecondModel, mOnPrepared);
+        inOrder.verify(mFirstModel).onPrepare(mContext);
+        inOrder.verify(mSecondModel).onPrepare(mContext);
+        inOrder.verify(mOnPrepared).run();
+    }
+
+    @Test
+    public void prepare_failingModel_stillCallsBack() {
+        doThrow(new IllegalStateException()).when(mFirstModel).onPrepare(any());
+
+        mBootstrap.prepare(mContext, Collections.singletonList(createModule(mFirstModel)),
+                mOnPrepared);
+        mWorkerTasks.get(0).run();
+        mMainTasks.get(0).run();
+
+        verify(mOnPrepared).run();
+    }
+
+    @Test
+    public void prepare_noModels_callsBackOnMain() {
+        mBootstrap.prepare(mContext, Collections.emptyList(), mOnPrepared);
+
+        assertEquals(0, mWorkerTasks.size());
+        mMainTasks.get(0).run();
+        verify(mOnPrepared).run();
+    }
+
+    private static HomeCardModule createModule(HomeCardInterface.Model model) {
+        CardPresenter presenter = mock(CardPresenter.class);
+        when(presenter.getModels()).thenReturn(Collections.singletonList(model));
+        HomeCardModule module = mock(HomeCardModule.class);
+        when(module.getCardPresenter()).thenReturn(presenter);
+        return module;
+    }
+}
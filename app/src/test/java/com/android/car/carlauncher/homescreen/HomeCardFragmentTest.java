@@ -25,7 +25,12 @@ import static androidx.test.espresso.matcher.ViewMatchers.withText;
 
 import static org.hamcrest.CoreMatchers.allOf;
 import static org.hamcrest.CoreMatchers.not;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
 
+import android.content.res.Configuration;
+
+import androidx.test.InstrumentationRegistry;
 import androidx.test.ext.junit.runners.AndroidJUnit4;
 import androidx.test.rule.ActivityTestRule;
 
@@ -64,11 +69,15 @@ public class HomeCardFragmentTest {
             CarLauncher.class);
 
     @Test
-    public void updateContentView_descriptiveTextWithFooter_displaysTapForMoreView() {
+    public void updateContentView_descriptiveTextWithFooter_displaysTapForMoreView()
+            throws Throwable {
         HomeCardFragment fragment = (HomeCardFragment) mActivityTestRule.getActivity()
                 .getSupportFragmentManager().findFragmentById(R.id.top_card);
-        fragment.updateHeaderView(CARD_HEADER);
-        fragment.updateContentView(DESCRIPTIVE_TEXT_VIEW);
+        // The presenter updates the views from a frame callback on the main thread.
+        mActivityTestRule.runOnUiThread(() -> {
+            fragment.updateHeaderView(CARD_HEADER);
+            fragment.updateContentView(DESCRIPTIVE_TEXT_VIEW);
+        });
 
         onView(allOf(withId(R.id.descriptive_text_layout),
                 isDescendantOfA(withId(R.id.top_card)))).check(
@@ -85,11 +94,14 @@ public class HomeCardFragmentTest {
     }
 
     @Test
-    public void updateContentView_descriptiveTextWithNoFooter_hidesTapForMoreView() {
+    public void updateContentView_descriptiveTextWithNoFooter_hidesTapForMoreView()
+            throws Throwable {
         HomeCardFragment fragment = (HomeCardFragment) mActivityTestRule.getActivity()
                 .getSupportFragmentManager().findFragmentById(R.id.top_card);
-        fragment.updateHeaderView(CARD_HEADER);
-        fragment.updateContentView(DESCRIPTIVE_TEXT_VIEW_NO_FOOTER);
+        mActivityTestRule.runOnUiThread(() -> {
+            fragment.updateHeaderView(CARD_HEADER);
+            fragment.updateContentView(DESCRIPTIVE_TEXT_VIEW_NO_FOOTER);
+        });
 
         onView(allOf(withId(R.id.descriptive_text_layout),
                 isDescendantOfA(withId(R.id.top_card)))).check(
@@ -106,11 +118,13 @@ public class HomeCardFragmentTest {
     }
 
     @Test
-    public void updateContentView_textBlockWithFooter_displaysTapForMoreView() {
+    public void updateContentView_textBlockWithFooter_displaysTapForMoreView() throws Throwable {
         HomeCardFragment fragment = (HomeCardFragment) mActivityTestRule.getActivity()
                 .getSupportFragmentManager().findFragmentById(R.id.top_card);
-        fragment.updateHeaderView(CARD_HEADER);
-        fragment.updateContentView(TEXT_BLOCK_VIEW);
+        mActivityTestRule.runOnUiThread(() -> {
+            fragment.updateHeaderView(CARD_HEADER);
+            fragment.updateContentView(TEXT_BLOCK_VIEW);
+        });
 
         onView(allOf(withId(R.id.text_block_layout), isDescendantOfA(withId(R.id.top_card)))).check(
                 matches(isDisplayed()));
@@ -123,11 +137,13 @@ public class HomeCardFragmentTest {
     }
 
     @Test
-    public void updateContentView_textBlockNoFooter_hidesTapForMoreView() {
+    public void updateContentView_textBlockNoFooter_hidesTapForMoreView() throws Throwable {
         HomeCardFragment fragment = (HomeCardFragment) mActivityTestRule.getActivity()
                 .getSupportFragmentManager().findFragmentById(R.id.top_card);
-        fragment.updateHeaderView(CARD_HEADER);
-        fragment.updateContentView(TEXT_BLOCK_VIEW_NO_FOOTER);
+        mActivityTestRule.runOnUiThread(() -> {
+            fragment.updateHeaderView(CARD_HEADER);
+            fragment.updateContentView(TEXT_BLOCK_VIEW_NO_FOOTER);
+        });
 
         onView(allOf(withId(R.id.text_block_layout), isDescendantOfA(withId(R.id.top_card)))).check(
                 matches(isDisplayed()));
@@ -138,4 +154,50 @@ public class HomeCardFragmentTest {
                 isDescendantOfA(withId(R.id.text_block_layout)),
                 isDescendantOfA(withId(R.id.top_card)))).check(matches(not(isDisplayed())));
     }
+
+    @Test
+    public void onConfigurationChanged_uiMode_redisplaysLastContentInSameFragment()
+            throws Throwable {
+        HomeCardFragment fragment = (HomeCardFragment) mActivityTestRule.getActivity()
+                .getSupportFragmentManager().findFragmentById(R.id.top_card);
+        mActivityTestRule.runOnUiThread(() -> {
+            fragment.updateHeaderView(CARD_HEADER);
+            fragment.updateContentView(TEXT_BLOCK_VIEW);
+        });
+
+        Configuration config = new Configuration(fragment.getResources().getConfiguration());
+        config.uiMode ^= Configuration.UI_MODE_NIGHT_MASK;
+        mActivityTestRule.runOnUiThread(() -> fragment.onConfigurationChanged(config));
+
+        assertSame(fragment, mActivityTestRule.getActivity().getSupportFragmentManager()
+                .findFragmentById(R.id.top_card));
+        onView(allOf(withId(R.id.text_block), withText(TEXT_BLOCK_CONTENT),
+                isDescendantOfA(withId(R.id.text_block_layout)),
+                isDescendantOfA(withId(R.id.top_card)))).check(matches(isDisplayed()));
+        onView(allOf(withId(R.id.tap_for_more_text), withText(TEXT_BLOCK_FOOTER),
+                isDescendantOfA(withId(R.id.text_block_layout)),
+                isDescendantOfA(withId(R.id.top_card)))).check(matches(isDisplayed()));
+    }
+
+    @Test
+    public void updateContentView_equalContent_doesNotTouchViews() throws Throwable {
+        HomeCardFragment fragment = (HomeCardFragment) mActivityTestRule.getActivity()
+                .getSupportFragmentManager().findFragmentById(R.id.top_card);
+        mActivityTestRule.runOnUiThread(() -> {
+            fragment.updateHeaderView(CARD_HEADER);
+            fragment.updateContentView(TEXT_BLOCK_VIEW);
+        });
+        InstrumentationRegistry.getInstrumentation().waitForIdleSync();
+
+        boolean[] layoutRequested = new boolean[1];
+        mActivityTestRule.runOnUiThread(() -> {
+            // Equal but not identical values, as a model would produce on every update.
+            fragment.updateHeaderView(new CardHeader(CARD_HEADER.getCardTitle(),
+                    CARD_HEADER.getCardIcon()));
+            fragment.updateContentView(new TextBlockView(TEXT_BLOCK_CONTENT, TEXT_BLOCK_FOOTER));
+            layoutRequested[0] = fragment.getView().isLayoutRequested();
+        });
+
+        assertFalse(layoutRequested[0]);
+    }
 }
@@ -0,0 +1,85 @@
+/*
+ * Copyright (C) 2022 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.car.carlauncher.homescreen;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import androidx.lifecycle.ViewModelProvider;
+
+import com.android.car.carlauncher.R;
+import com.android.car.carlauncher.homescreen.assistive.AssistiveCard;
+import com.android.car.carlauncher.homescreen.audio.AudioCard;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+@RunWith(JUnit4.class)
+public class HomeCardModuleRegistryTest {
+
+    @Test
+    public void create_registeredModules_doNotNeedReflection() {
+        assertTrue(HomeCardModuleRegistry.isRegistered(AssistiveCard.class.getName()));
+        assertTrue(HomeCardModuleRegistry.isRegistered(AudioCard.class.getName()));
+        assertTrue(HomeCardModuleRegistry.create(AssistiveCard.class.getName())
+                instanceof AssistiveCard);
+        assertTrue(HomeCardModuleRegistry.create(AudioCard.class.getName())
+                instanceof AudioCard);
+    }
+
+    @Test
+    public void create_overlayModule_fallsBackToReflection() {
+        String className = OverlayCard.class.getName();
+
+        assertFalse(HomeCardModuleRegistry.isRegistered(className));
+        assertTrue(HomeCardModuleRegistry.create(className) instanceof OverlayCard);
+    }
+
+    @Test
+    public void create_unknownClass_returnsNull() {
+        assertNull(HomeCardModuleRegistry.create("com.example.DoesNotExist"));
+    }
+
+    @Test
+    public void create_notAModule_returnsNull() {
+        assertNull(HomeCardModuleRegistry.create(Object.class.getName()));
+    }
+
+    /** Stands in for a module supplied by an OEM overlay. */
+    public static class OverlayCard implements HomeCardModule {
+        @Override
+        public void setViewModelProvider(ViewModelProvider viewModelProvider) {
+        }
+
+        @Override
+        public int getCardResId() {
+            return R.id.top_card;
+        }
+
+        @Override
+        public CardPresenter getCardPresenter() {
+            return null;
+        }
+
+        @Override
+        public HomeCardFragment getCardView() {
+            return null;
+        }
+    }
+}
@@ -17,13 +17,15 @@
 package com.android.car.carlauncher.homescreen.assistive;
 
 import static org.mockito.Mockito.any;
+import static org.mockito.Mockito.clearInvocations;
 import static org.mockito.Mockito.never;
-import static org.mockito.Mockito.reset;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 import android.view.View;
 
+import androidx.fragment.app.Fragment;
+
 import com.android.car.carlauncher.homescreen.HomeCardInterface;
 import com.android.car.carlauncher.homescreen.ui.CardHeader;
 import com.android.car.carlauncher.homescreen.ui.DescriptiveTextView;
@@ -50,6 +52,8 @@ public class AssistiveCardPresenterTest {
     @Mock
     private HomeCardInterface.View mView;
     @Mock
+    private Fragment mFragment;
+    @Mock
     private HomeCardInterface.Model mModel;
     @Mock
     private ProjectionModel mOtherModel;
@@ -57,10 +61,14 @@ public class AssistiveCardPresenterTest {
     @Before
     public void setUp() {
         MockitoAnnotations.initMocks(this);
+        when(mView.getFragment()).thenReturn(mFragment);
+        when(mFragment.isAdded()).thenReturn(true);
         when(mModel.getCardHeader()).thenReturn(CARD_HEADER);
         when(mModel.getCardContent()).thenReturn(CARD_CONTENT);
         mPresenter = new AssistiveCardPresenter();
         mPresenter.setView(mView);
+        // Apply updates immediately instead of on the next frame.
+        mPresenter.setFrameScheduler(Runnable::run);
     }
 
     @Test
@@ -77,7 +85,7 @@ public class AssistiveCardPresenterTest {
     public void onModelUpdated_nullDifferentModel_doesNotUpdate() {
         when(mOtherModel.getCardHeader()).thenReturn(null);
         mPresenter.onModelUpdated(mModel);
-        reset(mView);
+        clearInvocations(mView);
 
         mPresenter.onModelUpdated(mOtherModel);
         mPresenter.onViewClicked(mFragmentView);
@@ -92,7 +100,7 @@ public class AssistiveCardPresenterTest {
     @Test
     public void onModelUpdated_nullSameModel_updatesFragment() {
         mPresenter.onModelUpdated(mModel);
-        reset(mView);
+        clearInvocations(mView);
         when(mModel.getCardHeader()).thenReturn(null);
 
         mPresenter.onModelUpdated(mModel);
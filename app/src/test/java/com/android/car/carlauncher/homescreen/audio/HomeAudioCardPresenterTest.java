@@ -17,13 +17,15 @@
 package com.android.car.carlauncher.homescreen.audio;
 
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.clearInvocations;
 import static org.mockito.Mockito.never;
-import static org.mockito.Mockito.reset;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 import android.view.View;
 
+import androidx.fragment.app.Fragment;
+
 import com.android.car.carlauncher.homescreen.HomeCardInterface;
 import com.android.car.carlauncher.homescreen.ui.CardHeader;
 import com.android.car.carlauncher.homescreen.ui.DescriptiveTextView;
@@ -52,6 +54,8 @@ public class HomeAudioCardPresenterTest {
     @Mock
     private HomeCardInterface.View mView;
     @Mock
+    private Fragment mFragment;
+    @Mock
     private HomeCardInterface.Model mModel;
     @Mock
     private InCallModel mOtherModel;
@@ -59,10 +63,14 @@ public class HomeAudioCardPresenterTest {
     @Before
     public void setUp() {
         MockitoAnnotations.initMocks(this);
+        when(mView.getFragment()).thenReturn(mFragment);
+        when(mFragment.isAdded()).thenReturn(true);
         when(mModel.getCardHeader()).thenReturn(CARD_HEADER);
         when(mModel.getCardContent()).thenReturn(CARD_CONTENT);
         mPresenter = new HomeAudioCardPresenter();
         mPresenter.setView(mView);
+        // Apply updates immediately instead of on the next frame.
+        mPresenter.setFrameScheduler(Runnable::run);
     }
 
     @Test
@@ -79,7 +87,7 @@ public class HomeAudioCardPresenterTest {
     public void onModelUpdated_nullDifferentModel_doesNotUpdate() {
         when(mOtherModel.getCardHeader()).thenReturn(null);
         mPresenter.onModelUpdated(mModel);
-        reset(mView);
+        clearInvocations(mView);
 
         mPresenter.onModelUpdated(mOtherModel);
         mPresenter.onViewClicked(mFragmentView);
@@ -94,7 +102,7 @@ public class HomeAudioCardPresenterTest {
     @Test
     public void onModelUpdated_nullSameModel_updatesFragment() {
         mPresenter.onModelUpdated(mModel);
-        reset(mView);
+        clearInvocations(mView);
         when(mModel.getCardHeader()).thenReturn(null);
 
         mPresenter.onModelUpdated(mModel);
@@ -0,0 +1,84 @@
+/*
+ * Copyright (C) 2022 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.car.carlauncher.homescreen.ui;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+
+import android.graphics.drawable.ColorDrawable;
+import android.graphics.drawable.Drawable;
+import android.view.View;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+@RunWith(JUnit4.class)
+public class CardContentTest {
+
+    private static final Drawable IMAGE = new ColorDrawable();
+    private static final View.OnClickListener LISTENER = v -> { };
+
+    @Test
+    public void descriptiveTextView_sameText_isEqual() {
+        // Text is compared by content, not by CharSequence implementation.
+        DescriptiveTextView content = new DescriptiveTextView(IMAGE, "title", "subtitle", "footer");
+        DescriptiveTextView same = new DescriptiveTextView(IMAGE, new StringBuilder("title"),
+                "subtitle", "footer");
+
+        assertEquals(content, same);
+        assertEquals(content.hashCode(), same.hashCode());
+        assertNotEquals(content, new DescriptiveTextView(IMAGE, "title", "subtitle"));
+        assertNotEquals(content,
+                new DescriptiveTextView(new ColorDrawable(), "title", "subtitle", "footer"));
+    }
+
+    @Test
+    public void descriptiveTextWithControlsView_comparesControlsAndStartTime() {
+        DescriptiveTextWithControlsView.Control control =
+                new DescriptiveTextWithControlsView.Control(IMAGE, LISTENER);
+        DescriptiveTextWithControlsView content = new DescriptiveTextWithControlsView(IMAGE,
+                "title", "subtitle", /* startTime= */ 1, control, control, control);
+
+        assertEquals(content, new DescriptiveTextWithControlsView(IMAGE, "title", "subtitle",
+                /* startTime= */ 1, new DescriptiveTextWithControlsView.Control(IMAGE, LISTENER),
+                control, control));
+        assertNotEquals(content, new DescriptiveTextWithControlsView(IMAGE, "title", "subtitle",
+                /* startTime= */ 2, control, control, control));
+        assertNotEquals(content, new DescriptiveTextWithControlsView(IMAGE, "title", "subtitle",
+                /* startTime= */ 1, new DescriptiveTextWithControlsView.Control(IMAGE, v -> { }),
+                control, control));
+    }
+
+    @Test
+    public void textBlockView_differentTypes_areNotEqual() {
+        TextBlockView content = new TextBlockView("text", "footer");
+
+        assertEquals(content, new TextBlockView("text", "footer"));
+        assertNotEquals(content, new TextBlockView("text"));
+        assertNotEquals(content, new DescriptiveTextView(null, "text", null, "footer"));
+    }
+
+    @Test
+    public void cardHeader_sameTitleAndIcon_isEqual() {
+        CardHeader header = new CardHeader("app", IMAGE);
+
+        assertEquals(header, new CardHeader(new StringBuilder("app"), IMAGE));
+        assertEquals(header.hashCode(), new CardHeader("app", IMAGE).hashCode());
+        assertNotEquals(header, new CardHeader("app", new ColorDrawable()));
+    }
+}